@@ -1,11 +1,14 @@
 package org.androfarsh.demo.sidebar;
 
+import org.androfarsh.widget.SidebarIconLoader;
+import org.androfarsh.widget.SidebarIconLoader.IconSource;
 import org.androfarsh.widget.SidebarLayout;
 
 import android.annotation.TargetApi;
 import android.app.ActionBar;
 import android.os.Build;
 import android.os.Bundle;
+import android.util.TypedValue;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
@@ -23,10 +26,14 @@ public class SimpleDemoActivity extends BaseDemoActivity {
 			R.drawable.wp1, R.drawable.wp2 };
 	private static final int[] WALLPAPER_TITLES = new int[] { R.string.wp0,
 			R.string.wp1, R.string.wp2 };
+	private static final int ICON_SIZE = 60;
+	private static final int ICON_LOOK_AHEAD = 4;
 
 	private ListView mSidebar;
 	private ImageView mContent;
 	private SidebarLayout mRoot;
+	private SidebarIconLoader mIconLoader;
+	private int mIconSize;
 
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
@@ -39,16 +46,35 @@ public class SimpleDemoActivity extends BaseDemoActivity {
 		mSidebar = (ListView) findViewById(R.id.sidebar);
 		mContent = (ImageView) findViewById(R.id.content);
 
-		mSidebar.setAdapter(new SidebarAdapter());
+		mIconLoader = new SidebarIconLoader();
+		mIconSize = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+				ICON_SIZE, getResources().getDisplayMetrics());
+
+		final SidebarAdapter adapter = new SidebarAdapter();
+		mSidebar.setAdapter(adapter);
+		mIconLoader.attachPrefetch(mRoot, mSidebar, adapter, ICON_LOOK_AHEAD);
 		mSidebar.setOnItemClickListener(new OnItemClickListener() {
 
 			@Override
 			public void onItemClick(AdapterView<?> parent, View view,
-					int position, long id) {
-				mContent.setImageResource(WALLPAPER_DRAWABLE[position]);
+					final int position, long id) {
 				mRoot.closeSidebar();
+				mRoot.runAfterSettle(new Runnable() {
+
+					@Override
+					public void run() {
+						mContent.setImageResource(WALLPAPER_DRAWABLE[position]);
+					}
+				});
 			}
 		});
+		mRoot.prepareSidebar();
+	}
+
+	@Override
+	protected void onDestroy() {
+		mIconLoader.release();
+		super.onDestroy();
 	}
 
 	@TargetApi(Build.VERSION_CODES.HONEYCOMB)
@@ -70,7 +96,7 @@ public class SimpleDemoActivity extends BaseDemoActivity {
 		}
 	}
 
-	class SidebarAdapter extends BaseAdapter {
+	class SidebarAdapter extends BaseAdapter implements SidebarIconLoader.IconProvider {
 
 		@Override
 		public int getCount() {
@@ -101,11 +127,21 @@ public class SimpleDemoActivity extends BaseDemoActivity {
 						.findViewById(android.R.id.title);
 			}
 			final TAG tag = (TAG) convertView.getTag();
-			tag.icon.setImageResource(WALLPAPER_DRAWABLE[position]);
+			mIconLoader.bind(tag.icon, getIconSource(position), mIconSize);
 			tag.title.setText(WALLPAPER_TITLES[position]);
 			return convertView;
 		}
 
+		@Override
+		public IconSource getIconSource(int position) {
+			return IconSource.fromResource(getResources(), WALLPAPER_DRAWABLE[position]);
+		}
+
+		@Override
+		public int getIconSize(int position) {
+			return mIconSize;
+		}
+
 	}
 
 	static class TAG {
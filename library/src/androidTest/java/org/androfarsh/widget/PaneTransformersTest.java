@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.widget.FrameLayout;
+
+/*
+ * built-in transformers touch render properties only, no frame may request
+ * layout, neither on bare views nor driven by a SidebarLayout
+ */
+@RunWith(AndroidJUnit4.class)
+public class PaneTransformersTest {
+	private static final int WIDTH = 1080;
+	private static final int HEIGHT = 1920;
+	private static final int STEPS = 20;
+	private static final int[] ALIGNS = { SidebarLayout.LEFT, SidebarLayout.RIGHT,
+			SidebarLayout.TOP, SidebarLayout.BOTTOM };
+
+	private FrameLayout mParent;
+	private View mSidebar;
+	private View mContent;
+
+	@Before
+	public void setUp() {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				mParent = new FrameLayout(InstrumentationRegistry.getTargetContext());
+				mSidebar = new View(mParent.getContext());
+				mContent = new View(mParent.getContext());
+				mParent.addView(mSidebar);
+				mParent.addView(mContent);
+			}
+		});
+	}
+
+	@Test
+	public void zoomOut() {
+		assertNoLayout(new PaneTransformers.ZoomOut());
+		assertNoLayoutInSidebarLayout(new PaneTransformers.ZoomOut());
+	}
+
+	@Test
+	public void fade() {
+		assertNoLayout(new PaneTransformers.Fade());
+		assertNoLayoutInSidebarLayout(new PaneTransformers.Fade());
+	}
+
+	@Test
+	public void rotate3d() {
+		assertNoLayout(new PaneTransformers.Rotate3d());
+		assertNoLayoutInSidebarLayout(new PaneTransformers.Rotate3d());
+	}
+
+	@Test
+	public void elevate() {
+		assertNoLayout(new PaneTransformers.Elevate(16));
+		assertNoLayoutInSidebarLayout(new PaneTransformers.Elevate(16));
+	}
+
+	private void assertNoLayout(final SidebarLayout.PaneTransformer transformer) {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				for (int align : ALIGNS) {
+					layout(mParent);
+					for (int i = 0; i <= STEPS; i++) {
+						final float fraction = i / (float) STEPS;
+						transformer.transformPanes(mSidebar, mContent, fraction, align);
+
+						final String frame = transformer.getClass().getSimpleName()
+								+ " align " + align + " at " + fraction;
+						assertFalse(frame, mSidebar.isLayoutRequested());
+						assertFalse(frame, mContent.isLayoutRequested());
+						assertFalse(frame, mParent.isLayoutRequested());
+					}
+					PaneTransformers.reset(mSidebar);
+					PaneTransformers.reset(mContent);
+				}
+			}
+		});
+	}
+
+	private void assertNoLayoutInSidebarLayout(final SidebarLayout.PaneTransformer transformer) {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				final SidebarLayout layout = new SidebarLayout(mParent.getContext());
+				layout.setSidebar(new View(mParent.getContext()));
+				layout.setContent(new View(mParent.getContext()));
+				layout.setFrameClock(new ManualFrameClock());
+				layout.setPaneTransformer(transformer);
+				layout.setDebugMode(true);
+
+				for (int align : ALIGNS) {
+					layout.setAlign(align);
+					layout(layout);
+					for (int i = 0; i <= STEPS; i++) {
+						final float fraction = i / (float) STEPS;
+						layout.setSidebarProgress(fraction, false);
+
+						assertFalse(transformer.getClass().getSimpleName() + " align " + align
+								+ " at " + fraction, layout.isLayoutRequested());
+					}
+					layout.setSidebarProgress(0, false);
+				}
+			}
+		});
+	}
+
+	private static void layout(View view) {
+		view.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+				MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+		view.layout(0, 0, WIDTH, HEIGHT);
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+/* open/close state driven frame by frame on a ManualFrameClock */
+@RunWith(AndroidJUnit4.class)
+public class SidebarLayoutTest {
+	private static final int WIDTH = 1080;
+	private static final int HEIGHT = 1920;
+	private static final int MAX_FRAMES = 200;
+
+	private SidebarLayout mLayout;
+	private ManualFrameClock mClock;
+	private int mOpened;
+	private int mClosed;
+
+	@Before
+	public void setUp() {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				mLayout = new SidebarLayout(InstrumentationRegistry.getTargetContext());
+				mLayout.setSidebar(new View(mLayout.getContext()));
+				mLayout.setContent(new View(mLayout.getContext()));
+				mClock = new ManualFrameClock();
+				mLayout.setFrameClock(mClock);
+				mLayout.setListener(new SidebarLayout.SidebarListener() {
+
+					@Override
+					public void onSidebarOpened() {
+						mOpened++;
+					}
+
+					@Override
+					public void onSidebarClosed() {
+						mClosed++;
+					}
+				});
+				layout();
+			}
+		});
+	}
+
+	@Test
+	public void openSettles() {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				mLayout.openSidebar();
+				assertTrue(mLayout.isOpened());
+				assertFalse(mLayout.isSettled());
+
+				mClock.step();
+				assertFalse(mLayout.isSettled());
+				assertEquals(0, mOpened);
+
+				mClock.runUntilIdle(MAX_FRAMES);
+				assertFalse(mClock.hasPendingFrames());
+				assertTrue(mLayout.isSettled());
+				assertTrue(mLayout.isOpened());
+				assertEquals(1, mOpened);
+				assertEquals(0, mClosed);
+			}
+		});
+	}
+
+	@Test
+	public void toggleWhileAnimating() {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				mLayout.toggleSidebar();
+				mClock.step(3);
+				assertFalse(mLayout.isSettled());
+
+				/* a toggle during the animation is ignored, it runs to its end */
+				mLayout.toggleSidebar();
+				mClock.runUntilIdle(MAX_FRAMES);
+				assertTrue(mLayout.isSettled());
+				assertTrue(mLayout.isOpened());
+				assertEquals(1, mOpened);
+
+				/* requested toggles wait for the settle and collapse */
+				mLayout.toggleSidebar();
+				mClock.step();
+				mLayout.requestToggle();
+				mLayout.requestToggle();
+				mLayout.requestToggle();
+				mClock.runUntilIdle(MAX_FRAMES);
+				assertTrue(mLayout.isSettled());
+				assertTrue(mLayout.isOpened());
+				assertEquals(2, mOpened);
+				assertEquals(1, mClosed);
+			}
+		});
+	}
+
+	@Test
+	public void clockSwapWithDeferredCommand() {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				mLayout.openSidebar();
+				mLayout.requestClose();
+				/* the command frame comes while opening, so it waits for the settle */
+				mClock.step();
+				assertFalse(mLayout.isSettled());
+
+				final ManualFrameClock next = new ManualFrameClock();
+				mLayout.setFrameClock(next);
+				assertFalse(mClock.hasPendingFrames());
+
+				next.runUntilIdle(MAX_FRAMES);
+				assertFalse(next.hasPendingFrames());
+				assertTrue(mLayout.isSettled());
+				assertFalse(mLayout.isOpened());
+				assertEquals(1, mOpened);
+				assertEquals(1, mClosed);
+			}
+		});
+	}
+
+	private void layout() {
+		mLayout.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+				MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+		mLayout.layout(0, 0, WIDTH, HEIGHT);
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.HashMap;
+
+import android.view.Choreographer;
+
+/**
+ * {@link FrameClock} on the main thread {@link Choreographer}: frame times
+ * are vsync timestamps on the {@link System#nanoTime()} base.
+ */
+public final class ChoreographerFrameClock implements FrameClock {
+	private static ChoreographerFrameClock sInstance;
+
+	private final HashMap<Callback, Choreographer.FrameCallback> mCallbacks =
+			new HashMap<Callback, Choreographer.FrameCallback>();
+
+	public static ChoreographerFrameClock getInstance() {
+		if (sInstance == null) {
+			sInstance = new ChoreographerFrameClock();
+		}
+		return sInstance;
+	}
+
+	private ChoreographerFrameClock() {
+	}
+
+	@Override
+	public long nanoTime() {
+		return System.nanoTime();
+	}
+
+	/* a callback already waiting for the next frame is not posted twice */
+	@Override
+	public void postFrameCallback(final Callback callback) {
+		if (mCallbacks.containsKey(callback)) {
+			return;
+		}
+		final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+
+			@Override
+			public void doFrame(long frameTimeNanos) {
+				mCallbacks.remove(callback);
+				callback.doFrame(frameTimeNanos);
+			}
+		};
+		mCallbacks.put(callback, frameCallback);
+		Choreographer.getInstance().postFrameCallback(frameCallback);
+	}
+
+	@Override
+	public void removeFrameCallback(Callback callback) {
+		final Choreographer.FrameCallback frameCallback = mCallbacks.remove(callback);
+		if (frameCallback != null) {
+			Choreographer.getInstance().removeFrameCallback(frameCallback);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+
+/**
+ * Filterable sidebar menu mode. Wraps the menu adapter and shows only the
+ * items matched by a {@link SidebarMenuFilter}; the list is notified when
+ * a query changes the visible set or the wrapped adapter changes.
+ */
+public class FilteredSidebarAdapter extends BaseAdapter implements
+		SidebarMenuFilter.FilterListener {
+	private final ListAdapter mAdapter;
+	private final TitleResolver mTitleResolver;
+	private final SidebarMenuFilter mFilter;
+	private SidebarMenuFilter.FilterListener mListener;
+
+	private final DataSetObserver mObserver = new DataSetObserver() {
+
+		@Override
+		public void onChanged() {
+			reindex();
+		}
+
+		@Override
+		public void onInvalidated() {
+			reindex();
+		}
+	};
+
+	public FilteredSidebarAdapter(ListAdapter adapter, TitleResolver titleResolver) {
+		this(adapter, titleResolver, new SidebarMenuFilter());
+	}
+
+	public FilteredSidebarAdapter(ListAdapter adapter,
+			TitleResolver titleResolver, SidebarMenuFilter filter) {
+		if (adapter == null || titleResolver == null || filter == null) {
+			throw new NullPointerException();
+		}
+		mAdapter = adapter;
+		mTitleResolver = titleResolver;
+		mFilter = filter;
+		mFilter.setListener(this);
+		mAdapter.registerDataSetObserver(mObserver);
+		reindex();
+	}
+
+	public void filter(CharSequence query) {
+		mFilter.filter(query);
+	}
+
+	public void setFilterListener(SidebarMenuFilter.FilterListener l) {
+		mListener = l;
+	}
+
+	public ListAdapter getWrappedAdapter() {
+		return mAdapter;
+	}
+
+	/* position in the wrapped adapter */
+	public int getWrappedPosition(int position) {
+		return mFilter.getItemIndex(position);
+	}
+
+	public void release() {
+		mAdapter.unregisterDataSetObserver(mObserver);
+		mFilter.release();
+	}
+
+	private void reindex() {
+		final int count = mAdapter.getCount();
+		final List<CharSequence> titles = new ArrayList<CharSequence>(count);
+		for (int i = 0; i < count; i++) {
+			titles.add(mTitleResolver.getTitle(mAdapter, i));
+		}
+		mFilter.setItems(titles);
+		/* rows out of range were dropped at once, the list must see it now */
+		notifyDataSetChanged();
+	}
+
+	@Override
+	public void onFilterResults(int[] results, int[] removed, int[] inserted) {
+		notifyDataSetChanged();
+		if (mListener != null) {
+			mListener.onFilterResults(results, removed, inserted);
+		}
+	}
+
+	@Override
+	public int getCount() {
+		return mFilter.getCount();
+	}
+
+	@Override
+	public Object getItem(int position) {
+		return mAdapter.getItem(getWrappedPosition(position));
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return mAdapter.getItemId(getWrappedPosition(position));
+	}
+
+	@Override
+	public boolean hasStableIds() {
+		return mAdapter.hasStableIds();
+	}
+
+	@Override
+	public int getItemViewType(int position) {
+		return mAdapter.getItemViewType(getWrappedPosition(position));
+	}
+
+	@Override
+	public int getViewTypeCount() {
+		return mAdapter.getViewTypeCount();
+	}
+
+	@Override
+	public boolean isEnabled(int position) {
+		return mAdapter.isEnabled(getWrappedPosition(position));
+	}
+
+	@Override
+	public boolean areAllItemsEnabled() {
+		return mAdapter.areAllItemsEnabled();
+	}
+
+	@Override
+	public View getView(int position, View convertView, ViewGroup parent) {
+		return mAdapter.getView(getWrappedPosition(position), convertView, parent);
+	}
+
+	public interface TitleResolver {
+		public CharSequence getTitle(ListAdapter adapter, int position);
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+/**
+ * Source of animation frames for {@link SidebarLayout}. The default follows
+ * vsync through {@link ChoreographerFrameClock}; {@link ManualFrameClock}
+ * steps frames explicitly for deterministic tests and profiling off-device.
+ */
+public interface FrameClock {
+	/* time base of the frame times, in nanoseconds */
+	public long nanoTime();
+
+	/* one shot, called with the frame time of the next frame */
+	public void postFrameCallback(Callback callback);
+
+	public void removeFrameCallback(Callback callback);
+
+	public interface Callback {
+		public void doFrame(long frameTimeNanos);
+	}
+}
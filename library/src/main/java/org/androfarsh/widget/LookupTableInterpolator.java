@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * Interpolator sampled once into a fixed size table and evaluated by linear
+ * lookup, for path, XML or otherwise expensive interpolators running every
+ * frame. Input is clamped to [0, 1], the range animations feed in.
+ */
+public class LookupTableInterpolator implements Interpolator {
+	public static final int DEFAULT_SIZE = 257;
+
+	private final Interpolator mSource;
+	private final float[] mValues;
+	private final int mLast;
+
+	public LookupTableInterpolator(Interpolator source) {
+		this(source, DEFAULT_SIZE);
+	}
+
+	public LookupTableInterpolator(Interpolator source, int size) {
+		if (source == null) {
+			throw new NullPointerException();
+		}
+		if (size < 2) {
+			throw new IllegalArgumentException("size < 2");
+		}
+		mSource = source;
+		mValues = new float[size];
+		mLast = size - 1;
+		for (int i = 0; i < size; i++) {
+			mValues[i] = source.getInterpolation(i / (float) mLast);
+		}
+	}
+
+	/* the table for an interpolator worth caching, others as they are */
+	public static Interpolator wrap(Interpolator interpolator) {
+		if (interpolator == null || interpolator instanceof LookupTableInterpolator
+				|| interpolator instanceof LinearInterpolator) {
+			return interpolator;
+		}
+		return new LookupTableInterpolator(interpolator);
+	}
+
+	public Interpolator getSource() {
+		return mSource;
+	}
+
+	public int getSize() {
+		return mValues.length;
+	}
+
+	@Override
+	public float getInterpolation(float input) {
+		if (input <= 0) {
+			return mValues[0];
+		}
+		if (input >= 1) {
+			return mValues[mLast];
+		}
+		final float position = input * mLast;
+		final int index = (int) position;
+		final float start = mValues[index];
+		return start + (mValues[index + 1] - start) * (position - index);
+	}
+
+	/*
+	 * largest difference to the source over evenly spaced inputs, samples
+	 * well above the table size also probe between its entries
+	 */
+	public float getMaxError(int samples) {
+		if (samples < 2) {
+			throw new IllegalArgumentException("samples < 2");
+		}
+		float max = 0;
+		for (int i = 0; i < samples; i++) {
+			final float input = i / (float) (samples - 1);
+			max = Math.max(max, Math.abs(getInterpolation(input) - mSource.getInterpolation(input)));
+		}
+		return max;
+	}
+}
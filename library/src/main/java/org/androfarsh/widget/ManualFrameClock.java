@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link FrameClock} that only moves when told to. Every {@link #step()}
+ * advances the time by one frame interval and runs the callbacks posted for
+ * that frame, so animation positions can be asserted frame by frame and
+ * long runs of toggles simulated without a device or real time passing.
+ */
+public class ManualFrameClock implements FrameClock {
+	public static final long FRAME_60HZ = 16666667L;
+	public static final long FRAME_120HZ = 8333333L;
+
+	private final List<Callback> mCallbacks = new ArrayList<Callback>();
+	private long mNanos;
+	private long mFrameInterval;
+
+	public ManualFrameClock() {
+		this(FRAME_60HZ);
+	}
+
+	public ManualFrameClock(long frameIntervalNanos) {
+		setFrameInterval(frameIntervalNanos);
+	}
+
+	public long getFrameInterval() {
+		return mFrameInterval;
+	}
+
+	public void setFrameInterval(long frameIntervalNanos) {
+		if (frameIntervalNanos <= 0) {
+			throw new IllegalArgumentException("frameIntervalNanos <= 0");
+		}
+		mFrameInterval = frameIntervalNanos;
+	}
+
+	@Override
+	public long nanoTime() {
+		return mNanos;
+	}
+
+	/* move the time without producing a frame, e.g. a stalled main thread */
+	public void advance(long nanos) {
+		mNanos += nanos;
+	}
+
+	@Override
+	public void postFrameCallback(Callback callback) {
+		if (!mCallbacks.contains(callback)) {
+			mCallbacks.add(callback);
+		}
+	}
+
+	@Override
+	public void removeFrameCallback(Callback callback) {
+		mCallbacks.remove(callback);
+	}
+
+	public boolean hasPendingFrames() {
+		return !mCallbacks.isEmpty();
+	}
+
+	/* one frame: callbacks posted while it runs go to the next one */
+	public void step() {
+		mNanos += mFrameInterval;
+		final Callback[] callbacks = mCallbacks.toArray(new Callback[mCallbacks.size()]);
+		mCallbacks.clear();
+		for (Callback callback : callbacks) {
+			callback.doFrame(mNanos);
+		}
+	}
+
+	public void step(int frames) {
+		for (int i = 0; i < frames; i++) {
+			step();
+		}
+	}
+
+	/* steps until nothing is pending, returns the frames it took */
+	public int runUntilIdle(int maxFrames) {
+		int frames = 0;
+		while (hasPendingFrames() && frames < maxFrames) {
+			step();
+			frames++;
+		}
+		return frames;
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import android.view.View;
+
+/**
+ * Built-in {@link SidebarLayout.PaneTransformer}s. All of them change render
+ * properties only, so a frame never invalidates layout.
+ */
+public final class PaneTransformers {
+	private static final int VERTICAL_MASK = SidebarLayout.TOP | SidebarLayout.BOTTOM;
+	private static final int RIGHT_BOTTOM_MASK = SidebarLayout.RIGHT | SidebarLayout.BOTTOM;
+
+	private PaneTransformers() {
+	}
+
+	/* the pivot goes back only if a transformer moved it through setPivot() */
+	public static void reset(View view) {
+		view.setScaleX(1);
+		view.setScaleY(1);
+		view.setAlpha(1);
+		view.setRotation(0);
+		view.setRotationX(0);
+		view.setRotationY(0);
+		view.setTranslationZ(0);
+
+		final float[] pivot = (float[]) view.getTag(R.id.sidebar_pane_pivot);
+		if (pivot != null) {
+			view.setTag(R.id.sidebar_pane_pivot, null);
+			view.setPivotX(pivot[0]);
+			view.setPivotY(pivot[1]);
+		}
+	}
+
+	/* for transformers: the pivot found on the first call is what reset() restores */
+	public static void setPivot(View view, float pivotX, float pivotY) {
+		if (view.getTag(R.id.sidebar_pane_pivot) == null) {
+			view.setTag(R.id.sidebar_pane_pivot,
+					new float[] { view.getPivotX(), view.getPivotY() });
+		}
+		view.setPivotX(pivotX);
+		view.setPivotY(pivotY);
+	}
+
+	/* pivot on the pane edge that faces the sidebar */
+	static void pivotToSidebar(View view, int align) {
+		if ((align & VERTICAL_MASK) > 0) {
+			setPivot(view, view.getWidth() / 2f,
+					(align & RIGHT_BOTTOM_MASK) > 0 ? view.getHeight() : 0);
+		} else {
+			setPivot(view, (align & RIGHT_BOTTOM_MASK) > 0 ? view.getWidth() : 0,
+					view.getHeight() / 2f);
+		}
+	}
+
+	/* content shrinks away from the sidebar, the sidebar grows into place */
+	public static class ZoomOut implements SidebarLayout.PaneTransformer {
+		private final float mContentScale;
+		private final float mSidebarScale;
+
+		public ZoomOut() {
+			this(0.8f, 1.2f);
+		}
+
+		public ZoomOut(float contentScale, float sidebarScale) {
+			mContentScale = contentScale;
+			mSidebarScale = sidebarScale;
+		}
+
+		@Override
+		public void transformPanes(View sidebar, View content, float openFraction, int align) {
+			final float contentScale = 1 - (1 - mContentScale) * openFraction;
+			pivotToSidebar(content, align);
+			content.setScaleX(contentScale);
+			content.setScaleY(contentScale);
+
+			final float sidebarScale = mSidebarScale - (mSidebarScale - 1) * openFraction;
+			sidebar.setScaleX(sidebarScale);
+			sidebar.setScaleY(sidebarScale);
+			sidebar.setAlpha(openFraction);
+		}
+	}
+
+	/* sidebar fades in while the content dims */
+	public static class Fade implements SidebarLayout.PaneTransformer {
+		private final float mContentAlpha;
+
+		public Fade() {
+			this(0.6f);
+		}
+
+		public Fade(float contentAlpha) {
+			mContentAlpha = contentAlpha;
+		}
+
+		@Override
+		public void transformPanes(View sidebar, View content, float openFraction, int align) {
+			sidebar.setAlpha(openFraction);
+			content.setAlpha(1 - (1 - mContentAlpha) * openFraction);
+		}
+	}
+
+	/* sidebar swings open like a door hinged on its outer edge */
+	public static class Rotate3d implements SidebarLayout.PaneTransformer {
+		private final float mAngle;
+
+		public Rotate3d() {
+			this(60);
+		}
+
+		public Rotate3d(float angle) {
+			mAngle = angle;
+		}
+
+		@Override
+		public void transformPanes(View sidebar, View content, float openFraction, int align) {
+			final float angle = mAngle * (1 - openFraction);
+			switch (align) {
+			case SidebarLayout.TOP:
+				setPivot(sidebar, sidebar.getPivotX(), 0);
+				sidebar.setRotationX(-angle);
+				break;
+			case SidebarLayout.BOTTOM:
+				setPivot(sidebar, sidebar.getPivotX(), sidebar.getHeight());
+				sidebar.setRotationX(angle);
+				break;
+			case SidebarLayout.RIGHT:
+				setPivot(sidebar, sidebar.getWidth(), sidebar.getPivotY());
+				sidebar.setRotationY(-angle);
+				break;
+			case SidebarLayout.LEFT:
+			default:
+				setPivot(sidebar, 0, sidebar.getPivotY());
+				sidebar.setRotationY(angle);
+				break;
+			}
+		}
+	}
+
+	/* content lifts above the sidebar as it slides away */
+	public static class Elevate implements SidebarLayout.PaneTransformer {
+		private final float mElevation;
+
+		public Elevate(float elevation) {
+			mElevation = elevation;
+		}
+
+		@Override
+		public void transformPanes(View sidebar, View content, float openFraction, int align) {
+			content.setTranslationZ(mElevation * openFraction);
+		}
+	}
+}
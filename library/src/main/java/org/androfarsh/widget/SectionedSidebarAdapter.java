@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+import android.widget.SectionIndexer;
+
+/**
+ * Sectioned sidebar menu. Rows stay the wrapped adapter's rows; the first
+ * row of every section only gets extra top padding, the header itself is
+ * drawn by {@link SectionedSidebarListView}.
+ */
+public class SectionedSidebarAdapter extends BaseAdapter implements SectionIndexer {
+	private final ListAdapter mAdapter;
+	private final SidebarSectionIndex.SectionResolver mResolver;
+	private SidebarSectionIndex mIndex;
+	private int mHeaderHeight;
+	private boolean mRegistered;
+
+	private final DataSetObserver mObserver = new DataSetObserver() {
+
+		@Override
+		public void onChanged() {
+			mIndex = SidebarSectionIndex.build(mAdapter, mResolver);
+			notifyDataSetChanged();
+		}
+
+		@Override
+		public void onInvalidated() {
+			mIndex = SidebarSectionIndex.build(mAdapter, mResolver);
+			notifyDataSetInvalidated();
+		}
+	};
+
+	public SectionedSidebarAdapter(ListAdapter adapter,
+			SidebarSectionIndex.SectionResolver resolver) {
+		if (adapter == null || resolver == null) {
+			throw new NullPointerException();
+		}
+		mAdapter = adapter;
+		mResolver = resolver;
+		mIndex = SidebarSectionIndex.build(adapter, resolver);
+		mAdapter.registerDataSetObserver(mObserver);
+		mRegistered = true;
+	}
+
+	public SidebarSectionIndex getSectionIndex() {
+		return mIndex;
+	}
+
+	public ListAdapter getWrappedAdapter() {
+		return mAdapter;
+	}
+
+	public int getHeaderHeight() {
+		return mHeaderHeight;
+	}
+
+	/* stop following the wrapped adapter, undone by the next attach to a list */
+	public void release() {
+		if (mRegistered) {
+			mRegistered = false;
+			mAdapter.unregisterDataSetObserver(mObserver);
+		}
+	}
+
+	/* follow the wrapped adapter again, changes made while released included */
+	void attach() {
+		if (!mRegistered) {
+			mRegistered = true;
+			mAdapter.registerDataSetObserver(mObserver);
+			mObserver.onChanged();
+		}
+	}
+
+	/* set by SectionedSidebarListView */
+	void setHeaderHeight(int headerHeight) {
+		if (mHeaderHeight != headerHeight) {
+			mHeaderHeight = headerHeight;
+			notifyDataSetChanged();
+		}
+	}
+
+	@Override
+	public Object[] getSections() {
+		return mIndex.getSections();
+	}
+
+	@Override
+	public int getPositionForSection(int section) {
+		return mIndex.getPositionForSection(section);
+	}
+
+	@Override
+	public int getSectionForPosition(int position) {
+		return mIndex.getSectionForPosition(position);
+	}
+
+	@Override
+	public int getCount() {
+		return mAdapter.getCount();
+	}
+
+	@Override
+	public Object getItem(int position) {
+		return mAdapter.getItem(position);
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return mAdapter.getItemId(position);
+	}
+
+	@Override
+	public boolean hasStableIds() {
+		return mAdapter.hasStableIds();
+	}
+
+	@Override
+	public int getItemViewType(int position) {
+		return mAdapter.getItemViewType(position);
+	}
+
+	@Override
+	public int getViewTypeCount() {
+		return mAdapter.getViewTypeCount();
+	}
+
+	@Override
+	public boolean isEnabled(int position) {
+		return mAdapter.isEnabled(position);
+	}
+
+	@Override
+	public boolean areAllItemsEnabled() {
+		return mAdapter.areAllItemsEnabled();
+	}
+
+	@Override
+	public View getView(int position, View convertView, ViewGroup parent) {
+		final View view = mAdapter.getView(position, convertView, parent);
+
+		Integer basePadding = (Integer) view.getTag(R.id.sidebar_section_padding);
+		if (basePadding == null || view != convertView) {
+			basePadding = view.getPaddingTop();
+			view.setTag(R.id.sidebar_section_padding, basePadding);
+		}
+
+		final int paddingTop = basePadding
+				+ (mIndex.isSectionStart(position) ? mHeaderHeight : 0);
+		if (view.getPaddingTop() != paddingTop) {
+			view.setPadding(view.getPaddingLeft(), paddingTop,
+					view.getPaddingRight(), view.getPaddingBottom());
+		}
+		return view;
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+
+/**
+ * ListView for a {@link SectionedSidebarAdapter}. Section headers, including
+ * the sticky one, are drawn straight onto the canvas as a decoration, so no
+ * header views are inflated or bound.
+ */
+public class SectionedSidebarListView extends ListView {
+	private static final int HEADER_HEIGHT = 24;
+	private static final int HEADER_TEXT_SIZE = 12;
+	private static final int HEADER_PADDING = 8;
+
+	private final Paint mBackgroundPaint = new Paint();
+	private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+	private int mHeaderHeight;
+	private int mHeaderPadding;
+	private SectionedSidebarAdapter mSectionedAdapter;
+
+	public SectionedSidebarListView(Context context) {
+		this(context, null);
+	}
+
+	public SectionedSidebarListView(Context context, AttributeSet attrs) {
+		this(context, attrs, android.R.attr.listViewStyle);
+	}
+
+	public SectionedSidebarListView(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+
+		mHeaderHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+				HEADER_HEIGHT, getResources().getDisplayMetrics());
+		mHeaderPadding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+				HEADER_PADDING, getResources().getDisplayMetrics());
+		mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+				HEADER_TEXT_SIZE, getResources().getDisplayMetrics()));
+		mTextPaint.setColor(Color.WHITE);
+		mBackgroundPaint.setColor(Color.DKGRAY);
+	}
+
+	@Override
+	public void setAdapter(ListAdapter adapter) {
+		if (mSectionedAdapter != null && mSectionedAdapter != adapter) {
+			mSectionedAdapter.release();
+		}
+		mSectionedAdapter = adapter instanceof SectionedSidebarAdapter
+				? (SectionedSidebarAdapter) adapter : null;
+		if (mSectionedAdapter != null) {
+			mSectionedAdapter.attach();
+			mSectionedAdapter.setHeaderHeight(mHeaderHeight);
+		}
+		super.setAdapter(adapter);
+	}
+
+	/* the wrapped adapter may outlive the list, it must not keep the list */
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		if (mSectionedAdapter != null) {
+			mSectionedAdapter.attach();
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		if (mSectionedAdapter != null) {
+			mSectionedAdapter.release();
+		}
+		super.onDetachedFromWindow();
+	}
+
+	public void setHeaderHeight(int headerHeight) {
+		if (mHeaderHeight != headerHeight) {
+			mHeaderHeight = headerHeight;
+			if (mSectionedAdapter != null) {
+				mSectionedAdapter.setHeaderHeight(headerHeight);
+			}
+		}
+	}
+
+	public int getHeaderHeight() {
+		return mHeaderHeight;
+	}
+
+	public void setHeaderTextColor(int color) {
+		mTextPaint.setColor(color);
+		invalidate();
+	}
+
+	public void setHeaderTextSize(float size) {
+		mTextPaint.setTextSize(size);
+		invalidate();
+	}
+
+	public void setHeaderBackgroundColor(int color) {
+		mBackgroundPaint.setColor(color);
+		invalidate();
+	}
+
+	public void setSelectionToSection(int section) {
+		if (mSectionedAdapter != null) {
+			setSelection(getHeaderViewsCount()
+					+ mSectionedAdapter.getSectionIndex().getPositionForSection(section));
+		}
+	}
+
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		super.dispatchDraw(canvas);
+
+		if (mSectionedAdapter == null || getChildCount() == 0 || mHeaderHeight <= 0) {
+			return;
+		}
+
+		final SidebarSectionIndex index = mSectionedAdapter.getSectionIndex();
+		final int first = getFirstVisiblePosition() - getHeaderViewsCount();
+		final int top = getPaddingTop();
+		final int left = getPaddingLeft();
+		final int right = getWidth() - getPaddingRight();
+
+		int sticky = -1;
+		int stickyTop = top;
+		for (int i = 0; i < getChildCount(); i++) {
+			final int position = first + i;
+			if (position < 0 || position >= index.getCount()) {
+				continue;
+			}
+
+			final View child = getChildAt(i);
+			if (sticky < 0) {
+				/* the first visible item owns the sticky header */
+				sticky = index.getSectionForPosition(position);
+				if (index.isSectionStart(position) && child.getTop() > top) {
+					stickyTop = child.getTop();
+				}
+				continue;
+			}
+
+			if (index.isSectionStart(position)) {
+				final int headerTop = child.getTop();
+				if (headerTop < stickyTop + mHeaderHeight) {
+					stickyTop = headerTop - mHeaderHeight;
+				}
+				drawHeader(canvas, index.getSections()[index.getSectionForPosition(position)],
+						left, headerTop, right);
+			}
+		}
+
+		if (sticky >= 0) {
+			canvas.save();
+			canvas.clipRect(left, top, right, getHeight() - getPaddingBottom());
+			drawHeader(canvas, index.getSections()[sticky], left, stickyTop, right);
+			canvas.restore();
+		}
+	}
+
+	private void drawHeader(Canvas canvas, Object section, int left, int top, int right) {
+		canvas.drawRect(left, top, right, top + mHeaderHeight, mBackgroundPaint);
+		if (section != null) {
+			final float baseline = top + (mHeaderHeight - mTextPaint.ascent()
+					- mTextPaint.descent()) / 2;
+			canvas.drawText(section.toString(), left + mHeaderPadding, baseline, mTextPaint);
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.HashMap;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.AbsListView;
+
+/**
+ * Badge/counter channel for sidebar menu rows. {@link #setBadge(long, int)}
+ * may be called from any thread; updates are collapsed per item id and bound
+ * to the visible rows at most once per frame, and only while the sidebar is
+ * visible. Adapters should read {@link #getBadge(long)} in getView().
+ */
+public class SidebarBadgeUpdater implements SidebarLayout.OnRevealListener {
+	public static final int NO_BADGE = 0;
+
+	private final Object mLock = new Object();
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	private final SidebarLayout mSidebarLayout;
+	private final AbsListView mList;
+	private final BadgeBinder mBinder;
+
+	/* guarded by mLock */
+	private HashMap<Long, Integer> mPending = new HashMap<Long, Integer>();
+	private boolean mScheduled;
+
+	/* main thread only */
+	private final HashMap<Long, Integer> mBadges = new HashMap<Long, Integer>();
+	private boolean mDeferred;
+	private boolean mFramePosted;
+
+	private final Runnable mScheduleRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			scheduleFrame();
+		}
+	};
+
+	private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mFramePosted = false;
+			applyPending();
+		}
+	};
+
+	public SidebarBadgeUpdater(SidebarLayout sidebarLayout, AbsListView list,
+			BadgeBinder binder) {
+		if (sidebarLayout == null || list == null || binder == null) {
+			throw new NullPointerException();
+		}
+		mSidebarLayout = sidebarLayout;
+		mList = list;
+		mBinder = binder;
+		mSidebarLayout.addOnRevealListener(this);
+	}
+
+	public void setBadge(long itemId, int count) {
+		synchronized (mLock) {
+			mPending.put(itemId, count);
+			if (mScheduled) {
+				return;
+			}
+			mScheduled = true;
+		}
+
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			scheduleFrame();
+		} else {
+			mHandler.post(mScheduleRunnable);
+		}
+	}
+
+	public void clearBadge(long itemId) {
+		setBadge(itemId, NO_BADGE);
+	}
+
+	/* last applied value, main thread only */
+	public int getBadge(long itemId) {
+		final Integer count = mBadges.get(itemId);
+		return count != null ? count : NO_BADGE;
+	}
+
+	public void release() {
+		mSidebarLayout.removeOnRevealListener(this);
+		mHandler.removeCallbacks(mScheduleRunnable);
+		if (mFramePosted) {
+			Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+			mFramePosted = false;
+		}
+		synchronized (mLock) {
+			mPending.clear();
+			mScheduled = false;
+		}
+	}
+
+	@Override
+	public void onSidebarReveal() {
+		if (mDeferred) {
+			mDeferred = false;
+			postFrame();
+		}
+	}
+
+	private void scheduleFrame() {
+		if (!mSidebarLayout.isSidebarVisible()) {
+			mDeferred = true;
+			return;
+		}
+		postFrame();
+	}
+
+	private void postFrame() {
+		if (!mFramePosted) {
+			mFramePosted = true;
+			Choreographer.getInstance().postFrameCallback(mFrameCallback);
+		}
+	}
+
+	private void applyPending() {
+		final HashMap<Long, Integer> batch;
+		synchronized (mLock) {
+			batch = mPending;
+			mPending = new HashMap<Long, Integer>();
+			mScheduled = false;
+		}
+
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		mBadges.putAll(batch);
+		for (Long id : batch.keySet()) {
+			if (batch.get(id) == NO_BADGE) {
+				mBadges.remove(id);
+			}
+		}
+
+		final int first = mList.getFirstVisiblePosition();
+		for (int i = 0; i < mList.getChildCount(); i++) {
+			final long id = mList.getItemIdAtPosition(first + i);
+			final Integer count = batch.get(id);
+			if (count != null) {
+				mBinder.onBindBadge(mList.getChildAt(i), id, count);
+			}
+		}
+	}
+
+	public interface BadgeBinder {
+		/* rebind only the badge part of an already bound row */
+		public void onBindBadge(View row, long itemId, int count);
+	}
+}
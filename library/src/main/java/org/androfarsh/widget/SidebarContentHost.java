@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.view.View;
+
+/**
+ * Content host for {@link SidebarLayout} keyed by menu destination. Content
+ * views that are switched away from are kept detached in a bounded LRU and
+ * swapped back in without re-inflation; the LRU shrinks on memory trim.
+ * Memory callbacks are only registered while the layout is attached, so a
+ * host without {@link #release()} does not leak its activity.
+ */
+public class SidebarContentHost implements ComponentCallbacks2,
+		View.OnAttachStateChangeListener {
+	private static final int MAX_SIZE = 3;
+
+	private final SidebarLayout mSidebarLayout;
+	private final ContentFactory mFactory;
+	private final Context mAppContext;
+	/* access ordered, the eldest entry is the least recently shown */
+	private final LinkedHashMap<Object, View> mCache = new LinkedHashMap<Object, View>(
+			MAX_SIZE + 1, 0.75f, true);
+	private int mMaxSize = MAX_SIZE;
+	private Object mCurrent;
+	private OnEvictListener mEvictListener;
+	private boolean mRegistered;
+
+	public SidebarContentHost(SidebarLayout sidebarLayout, ContentFactory factory) {
+		if (sidebarLayout == null || factory == null) {
+			throw new NullPointerException();
+		}
+		mSidebarLayout = sidebarLayout;
+		mFactory = factory;
+		mAppContext = sidebarLayout.getContext().getApplicationContext();
+		mSidebarLayout.addOnAttachStateChangeListener(this);
+		if (mSidebarLayout.isAttachedToWindow()) {
+			registerCallbacks();
+		}
+	}
+
+	/* number of detached views kept besides the shown one */
+	public void setMaxSize(int maxSize) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("maxSize < 0");
+		}
+		mMaxSize = maxSize;
+		trimToSize(maxSize);
+	}
+
+	public int getMaxSize() {
+		return mMaxSize;
+	}
+
+	public void setOnEvictListener(OnEvictListener l) {
+		mEvictListener = l;
+	}
+
+	public Object getCurrentDestination() {
+		return mCurrent;
+	}
+
+	public View show(Object destination) {
+		View view = mCache.get(destination);
+		if (view != null && destination.equals(mCurrent)) {
+			return view;
+		}
+
+		if (view == null) {
+			view = mFactory.createContent(destination);
+			mCache.put(destination, view);
+		}
+		mCurrent = destination;
+		mSidebarLayout.setContent(view);
+		trimToSize(mMaxSize);
+		return view;
+	}
+
+	public void evict(Object destination) {
+		if (destination.equals(mCurrent)) {
+			return;
+		}
+		final View view = mCache.remove(destination);
+		if (view != null) {
+			dispatchEvicted(destination, view);
+		}
+	}
+
+	public void trimToSize(int maxSize) {
+		final List<Object> evicted = new ArrayList<Object>();
+		final List<View> views = new ArrayList<View>();
+		int detached = mCache.size() - (mCurrent != null && mCache.containsKey(mCurrent) ? 1 : 0);
+		final Iterator<Map.Entry<Object, View>> it = mCache.entrySet().iterator();
+		while (detached > maxSize && it.hasNext()) {
+			final Map.Entry<Object, View> entry = it.next();
+			if (entry.getKey().equals(mCurrent)) {
+				continue;
+			}
+			evicted.add(entry.getKey());
+			views.add(entry.getValue());
+			it.remove();
+			detached--;
+		}
+
+		for (int i = 0; i < evicted.size(); i++) {
+			dispatchEvicted(evicted.get(i), views.get(i));
+		}
+	}
+
+	public void release() {
+		mSidebarLayout.removeOnAttachStateChangeListener(this);
+		unregisterCallbacks();
+		trimToSize(0);
+	}
+
+	private void registerCallbacks() {
+		if (!mRegistered) {
+			mRegistered = true;
+			mAppContext.registerComponentCallbacks(this);
+		}
+	}
+
+	private void unregisterCallbacks() {
+		if (mRegistered) {
+			mRegistered = false;
+			mAppContext.unregisterComponentCallbacks(this);
+		}
+	}
+
+	@Override
+	public void onViewAttachedToWindow(View v) {
+		registerCallbacks();
+	}
+
+	@Override
+	public void onViewDetachedFromWindow(View v) {
+		unregisterCallbacks();
+	}
+
+	private void dispatchEvicted(Object destination, View view) {
+		if (mEvictListener != null) {
+			mEvictListener.onContentEvicted(destination, view);
+		}
+	}
+
+	@Override
+	public void onTrimMemory(int level) {
+		if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+			trimToSize(0);
+		} else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+			trimToSize(mMaxSize / 2);
+		}
+	}
+
+	@Override
+	public void onLowMemory() {
+		trimToSize(0);
+	}
+
+	@Override
+	public void onConfigurationChanged(Configuration newConfig) {
+	}
+
+	public interface ContentFactory {
+		public View createContent(Object destination);
+	}
+
+	public interface OnEvictListener {
+		public void onContentEvicted(Object destination, View view);
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.Locale;
+
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+/**
+ * Snapshot of what the apps put into the sidebar and content panes of a
+ * {@link SidebarLayout}: view count, depth, an overdraw estimate from the
+ * backgrounds drawn, nested layout weights, and the layout requests the
+ * pane contents made during the last drag or animation.
+ */
+public class SidebarDiagnostics {
+	private final PaneReport mSidebar;
+	private final PaneReport mContent;
+	private final int mGestureLayoutRequests;
+
+	SidebarDiagnostics(View sidebar, View content, int gestureLayoutRequests) {
+		mSidebar = new PaneReport(sidebar);
+		mContent = new PaneReport(content);
+		mGestureLayoutRequests = gestureLayoutRequests;
+	}
+
+	public PaneReport getSidebar() {
+		return mSidebar;
+	}
+
+	public PaneReport getContent() {
+		return mContent;
+	}
+
+	/* layout passes the pane contents asked for during the last gesture */
+	public int getGestureLayoutRequests() {
+		return mGestureLayoutRequests;
+	}
+
+	public boolean hasWarnings() {
+		return mSidebar.getNestedWeights() > 0 || mContent.getNestedWeights() > 0
+				|| mSidebar.getOpaqueOverOpaque() > 0 || mContent.getOpaqueOverOpaque() > 0
+				|| mGestureLayoutRequests > 0;
+	}
+
+	@Override
+	public String toString() {
+		return "sidebar: " + mSidebar + "\ncontent: " + mContent
+				+ "\nlayout requests in last gesture: " + mGestureLayoutRequests;
+	}
+
+	public static class PaneReport {
+		private int mViewCount;
+		private int mDepth;
+		private int mNestedWeights;
+		private int mOpaqueOverOpaque;
+		private float mOverdraw;
+
+		PaneReport(View pane) {
+			final long area = (long) pane.getWidth() * pane.getHeight();
+			final long[] drawn = new long[1];
+			walk(pane, 1, false, false, drawn);
+			mOverdraw = area > 0 ? drawn[0] / (float) area : 0;
+		}
+
+		private void walk(View view, int depth, boolean underWeights, boolean underOpaque,
+				long[] drawn) {
+			if (view.getVisibility() != View.VISIBLE) {
+				return;
+			}
+			mViewCount++;
+			mDepth = Math.max(mDepth, depth);
+
+			final Drawable background = view.getBackground();
+			final boolean drawsBackground = background != null
+					&& background.getOpacity() != PixelFormat.TRANSPARENT;
+			if (drawsBackground) {
+				drawn[0] += (long) view.getWidth() * view.getHeight();
+			}
+			final boolean opaque = drawsBackground
+					&& background.getOpacity() == PixelFormat.OPAQUE;
+			if (opaque && underOpaque) {
+				mOpaqueOverOpaque++;
+			}
+
+			if (!(view instanceof ViewGroup)) {
+				return;
+			}
+			final boolean weights = hasWeightedChildren(view);
+			if (weights && underWeights) {
+				mNestedWeights++;
+			}
+			final ViewGroup group = (ViewGroup) view;
+			for (int i = 0; i < group.getChildCount(); i++) {
+				walk(group.getChildAt(i), depth + 1, underWeights || weights,
+						underOpaque || opaque, drawn);
+			}
+		}
+
+		private static boolean hasWeightedChildren(View view) {
+			if (!(view instanceof LinearLayout)) {
+				return false;
+			}
+			final LinearLayout layout = (LinearLayout) view;
+			for (int i = 0; i < layout.getChildCount(); i++) {
+				final ViewGroup.LayoutParams lp = layout.getChildAt(i).getLayoutParams();
+				if (lp instanceof LinearLayout.LayoutParams
+						&& ((LinearLayout.LayoutParams) lp).weight > 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public int getViewCount() {
+			return mViewCount;
+		}
+
+		public int getDepth() {
+			return mDepth;
+		}
+
+		/* weighted LinearLayouts inside another weighted LinearLayout */
+		public int getNestedWeights() {
+			return mNestedWeights;
+		}
+
+		/* opaque backgrounds drawn over an opaque background of an ancestor */
+		public int getOpaqueOverOpaque() {
+			return mOpaqueOverOpaque;
+		}
+
+		/* background pixels drawn per pane pixel */
+		public float getOverdraw() {
+			return mOverdraw;
+		}
+
+		@Override
+		public String toString() {
+			return "views=" + mViewCount + " depth=" + mDepth
+					+ " overdraw=" + String.format(Locale.US, "%.2f", mOverdraw)
+					+ " opaqueOverOpaque=" + mOpaqueOverOpaque
+					+ " nestedWeights=" + mNestedWeights;
+		}
+	}
+}
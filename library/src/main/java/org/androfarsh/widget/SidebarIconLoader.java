@@ -0,0 +1,381 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.content.ContentResolver;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.AbsListView;
+import android.widget.ImageView;
+import android.widget.ListView;
+
+/**
+ * Icon loading for sidebar menu rows. Icons are decoded off the main thread
+ * at the row's target size and kept in a byte-budgeted LRU. Each ImageView
+ * gets a fixed-size {@link IconDrawable} once, so a late result only
+ * invalidates the row and never requests a layout.
+ */
+public class SidebarIconLoader {
+	private static final String TAG = SidebarIconLoader.class.getSimpleName();
+	private static final int THREADS = 2;
+	private static final int MEMORY_FRACTION = 8;
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final ExecutorService mExecutor;
+	private final LruCache<String, Bitmap> mCache;
+
+	/* main thread only */
+	private final Set<String> mInFlight = new HashSet<String>();
+	private final WeakHashMap<ImageView, String> mBindings = new WeakHashMap<ImageView, String>();
+
+	public SidebarIconLoader() {
+		this((int) (Runtime.getRuntime().maxMemory() / MEMORY_FRACTION));
+	}
+
+	public SidebarIconLoader(int maxBytes) {
+		mCache = new LruCache<String, Bitmap>(maxBytes) {
+
+			@Override
+			protected int sizeOf(String key, Bitmap value) {
+				return value.getByteCount();
+			}
+		};
+		mExecutor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread thread = new Thread(new Runnable() {
+
+					@Override
+					public void run() {
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+						r.run();
+					}
+				}, TAG);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	public void bind(final ImageView view, IconSource source, int targetSize) {
+		final IconDrawable drawable = obtainDrawable(view, targetSize);
+		final String key = key(source, targetSize);
+		mBindings.put(view, key);
+
+		final Bitmap bitmap = mCache.get(key);
+		drawable.setBitmap(bitmap);
+		if (bitmap == null) {
+			load(source, targetSize, key);
+		}
+	}
+
+	public void prefetch(IconSource source, int targetSize) {
+		final String key = key(source, targetSize);
+		if (mCache.get(key) == null) {
+			load(source, targetSize, key);
+		}
+	}
+
+	/* prefetch icons of the rows about to be shown each time the sidebar starts to open */
+	public SidebarLayout.OnRevealListener attachPrefetch(SidebarLayout sidebarLayout,
+			final AbsListView list, final IconProvider provider, final int lookAhead) {
+		final SidebarLayout.OnRevealListener listener = new SidebarLayout.OnRevealListener() {
+
+			@Override
+			public void onSidebarReveal() {
+				if (list.getAdapter() == null) {
+					return;
+				}
+
+				/* list positions count header rows, the provider's do not */
+				int headers = 0;
+				int footers = 0;
+				if (list instanceof ListView) {
+					headers = ((ListView) list).getHeaderViewsCount();
+					footers = ((ListView) list).getFooterViewsCount();
+				}
+				final int count = list.getAdapter().getCount() - headers - footers;
+				final int visible = list.getFirstVisiblePosition() - headers;
+				final int first = Math.max(0, visible);
+				final int last = Math.min(count, visible + list.getChildCount() + lookAhead);
+				for (int position = first; position < last; position++) {
+					final IconSource source = provider.getIconSource(position);
+					if (source != null) {
+						prefetch(source, provider.getIconSize(position));
+					}
+				}
+			}
+		};
+		sidebarLayout.addOnRevealListener(listener);
+		return listener;
+	}
+
+	public void trimToSize(int maxBytes) {
+		mCache.trimToSize(maxBytes);
+	}
+
+	public void clear() {
+		mCache.evictAll();
+	}
+
+	public void release() {
+		mExecutor.shutdownNow();
+		mHandler.removeCallbacksAndMessages(null);
+		mBindings.clear();
+		mInFlight.clear();
+		clear();
+	}
+
+	private IconDrawable obtainDrawable(ImageView view, int targetSize) {
+		final Drawable current = view.getDrawable();
+		if (current instanceof IconDrawable && ((IconDrawable) current).mSize == targetSize) {
+			return (IconDrawable) current;
+		}
+		final IconDrawable drawable = new IconDrawable(targetSize);
+		view.setImageDrawable(drawable);
+		return drawable;
+	}
+
+	private void load(final IconSource source, final int targetSize, final String key) {
+		if (!mInFlight.add(key)) {
+			return;
+		}
+
+		mExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				Bitmap bitmap = null;
+				try {
+					bitmap = decode(source, targetSize);
+				} catch (IOException e) {
+					Log.w(TAG, "can't decode " + key, e);
+				}
+
+				final Bitmap result = bitmap;
+				mHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						deliver(key, result);
+					}
+				});
+			}
+		});
+	}
+
+	private void deliver(String key, Bitmap bitmap) {
+		mInFlight.remove(key);
+		if (bitmap == null) {
+			return;
+		}
+
+		mCache.put(key, bitmap);
+		for (ImageView view : mBindings.keySet()) {
+			if (key.equals(mBindings.get(view)) && view.getDrawable() instanceof IconDrawable) {
+				((IconDrawable) view.getDrawable()).setBitmap(bitmap);
+			}
+		}
+	}
+
+	static Bitmap decode(IconSource source, int targetSize) throws IOException {
+		final BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		options.inScaled = false;
+		source.decode(options);
+
+		final int srcSize = Math.min(options.outWidth, options.outHeight);
+		if (srcSize <= 0) {
+			return null;
+		}
+
+		/* unknown target size, e.g. the view is not measured yet: full size */
+		int sampleSize = 1;
+		while (targetSize > 0 && srcSize / (sampleSize * 2) >= targetSize) {
+			sampleSize *= 2;
+		}
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+		/* finish the downscale inside the decoder instead of a second bitmap */
+		final int sampledSize = srcSize / sampleSize;
+		if (sampledSize > targetSize && targetSize > 0) {
+			options.inScaled = true;
+			options.inDensity = sampledSize;
+			options.inTargetDensity = targetSize;
+		}
+		return source.decode(options);
+	}
+
+	private static String key(IconSource source, int targetSize) {
+		return source.getKey() + '@' + targetSize;
+	}
+
+	public static abstract class IconSource {
+		public abstract String getKey();
+
+		/* called twice: with inJustDecodeBounds for the size and then for pixels */
+		public abstract Bitmap decode(BitmapFactory.Options options) throws IOException;
+
+		public static IconSource fromResource(final Resources res, final int resId) {
+			return new IconSource() {
+
+				@Override
+				public String getKey() {
+					return "res:" + resId;
+				}
+
+				@Override
+				public Bitmap decode(BitmapFactory.Options options) {
+					return BitmapFactory.decodeResource(res, resId, options);
+				}
+			};
+		}
+
+		public static IconSource fromFile(final String path) {
+			return new IconSource() {
+
+				@Override
+				public String getKey() {
+					return "file:" + path;
+				}
+
+				@Override
+				public Bitmap decode(BitmapFactory.Options options) {
+					return BitmapFactory.decodeFile(path, options);
+				}
+			};
+		}
+
+		public static IconSource fromUri(final ContentResolver resolver, final Uri uri) {
+			return new IconSource() {
+
+				@Override
+				public String getKey() {
+					return uri.toString();
+				}
+
+				@Override
+				public Bitmap decode(BitmapFactory.Options options) throws IOException {
+					final InputStream in = resolver.openInputStream(uri);
+					if (in == null) {
+						throw new IOException("can't open " + uri);
+					}
+					try {
+						return BitmapFactory.decodeStream(in, null, options);
+					} finally {
+						in.close();
+					}
+				}
+			};
+		}
+	}
+
+	public interface IconProvider {
+		public IconSource getIconSource(int position);
+
+		public int getIconSize(int position);
+	}
+
+	/* fixed intrinsic size, swapping the bitmap never changes the ImageView's layout */
+	static class IconDrawable extends Drawable {
+		private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+		private final Rect mSrc = new Rect();
+		private final int mSize;
+		private Bitmap mBitmap;
+
+		IconDrawable(int size) {
+			mSize = size;
+		}
+
+		void setBitmap(Bitmap bitmap) {
+			if (mBitmap != bitmap) {
+				mBitmap = bitmap;
+				invalidateSelf();
+			}
+		}
+
+		@Override
+		public void draw(Canvas canvas) {
+			if (mBitmap == null) {
+				return;
+			}
+
+			/* center crop */
+			final Rect bounds = getBounds();
+			final int w = mBitmap.getWidth();
+			final int h = mBitmap.getHeight();
+			if (w * bounds.height() > h * bounds.width()) {
+				final int srcW = bounds.height() > 0 ? h * bounds.width() / bounds.height() : w;
+				mSrc.set((w - srcW) / 2, 0, (w + srcW) / 2, h);
+			} else {
+				final int srcH = bounds.width() > 0 ? w * bounds.height() / bounds.width() : h;
+				mSrc.set(0, (h - srcH) / 2, w, (h + srcH) / 2);
+			}
+			canvas.drawBitmap(mBitmap, mSrc, bounds, mPaint);
+		}
+
+		@Override
+		public int getIntrinsicWidth() {
+			return mSize;
+		}
+
+		@Override
+		public int getIntrinsicHeight() {
+			return mSize;
+		}
+
+		@Override
+		public void setAlpha(int alpha) {
+			mPaint.setAlpha(alpha);
+			invalidateSelf();
+		}
+
+		@Override
+		public void setColorFilter(ColorFilter cf) {
+			mPaint.setColorFilter(cf);
+			invalidateSelf();
+		}
+
+		@Override
+		public int getOpacity() {
+			return PixelFormat.TRANSLUCENT;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
+
+/**
+ * Press-time prefetch hook for sidebar menu items. The listener hears about
+ * an item on ACTION_DOWN (or after a press/hover dwell) instead of on click,
+ * and gets a cancel when the press turns into a scroll. Installs itself as
+ * the list's touch and hover listener, replacing any set before; listeners
+ * the app needs on the list go through {@link #setOnTouchListener} and
+ * {@link #setOnHoverListener}, get every event first and are put back on
+ * the list by {@link #detach()}. Events are only consumed by those.
+ */
+public class SidebarItemPrefetcher implements View.OnTouchListener,
+		View.OnHoverListener {
+	public static final int NO_DWELL = 0;
+	private static final int HOVER_DWELL = 150;
+
+	private final AbsListView mList;
+	private final PrefetchListener mListener;
+	private final int mTouchSlop;
+	private View.OnTouchListener mTouchListener;
+	private View.OnHoverListener mHoverListener;
+	private int mPressDwell = NO_DWELL;
+	private int mHoverDwell = HOVER_DWELL;
+
+	private int mPosition = AdapterView.INVALID_POSITION;
+	private long mId;
+	private boolean mFired;
+	private float mDownX;
+	private float mDownY;
+
+	private final Runnable mFireRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			fire();
+		}
+	};
+
+	public SidebarItemPrefetcher(AbsListView list, PrefetchListener listener) {
+		if (list == null || listener == null) {
+			throw new NullPointerException();
+		}
+		mList = list;
+		mListener = listener;
+		mTouchSlop = ViewConfiguration.get(list.getContext()).getScaledTouchSlop();
+		mList.setOnTouchListener(this);
+		mList.setOnHoverListener(this);
+	}
+
+	/* 0 fires on ACTION_DOWN */
+	public void setPressDwell(int millis) {
+		mPressDwell = millis;
+	}
+
+	public void setHoverDwell(int millis) {
+		mHoverDwell = millis;
+	}
+
+	/* chained instead of mList.setOnTouchListener(), which would remove the prefetcher */
+	public void setOnTouchListener(View.OnTouchListener l) {
+		mTouchListener = l;
+	}
+
+	public void setOnHoverListener(View.OnHoverListener l) {
+		mHoverListener = l;
+	}
+
+	public void detach() {
+		cancel();
+		mList.setOnTouchListener(mTouchListener);
+		mList.setOnHoverListener(mHoverListener);
+	}
+
+	@Override
+	public boolean onTouch(View v, MotionEvent ev) {
+		final boolean consumed = mTouchListener != null && mTouchListener.onTouch(v, ev);
+		switch (ev.getActionMasked()) {
+		case MotionEvent.ACTION_DOWN:
+			cancel();
+			mDownX = ev.getX();
+			mDownY = ev.getY();
+			arm(mList.pointToPosition((int) mDownX, (int) mDownY), mPressDwell);
+			break;
+		case MotionEvent.ACTION_MOVE:
+			if (mPosition != AdapterView.INVALID_POSITION
+					&& (Math.abs(ev.getX() - mDownX) > mTouchSlop
+					|| Math.abs(ev.getY() - mDownY) > mTouchSlop)) {
+				cancel();
+			}
+			break;
+		case MotionEvent.ACTION_UP:
+			/* a tap: the click is coming, don't wait for the dwell */
+			if (mPosition != AdapterView.INVALID_POSITION && !mFired) {
+				mList.removeCallbacks(mFireRunnable);
+				fire();
+			}
+			reset();
+			break;
+		case MotionEvent.ACTION_CANCEL:
+			cancel();
+			break;
+		}
+		return consumed;
+	}
+
+	@Override
+	public boolean onHover(View v, MotionEvent ev) {
+		final boolean consumed = mHoverListener != null && mHoverListener.onHover(v, ev);
+		switch (ev.getActionMasked()) {
+		case MotionEvent.ACTION_HOVER_ENTER:
+		case MotionEvent.ACTION_HOVER_MOVE:
+			final int position = mList.pointToPosition((int) ev.getX(), (int) ev.getY());
+			if (position != mPosition) {
+				cancel();
+				arm(position, mHoverDwell);
+			}
+			break;
+		case MotionEvent.ACTION_HOVER_EXIT:
+			cancel();
+			break;
+		}
+		return consumed;
+	}
+
+	private void arm(int position, int dwell) {
+		if (position == AdapterView.INVALID_POSITION || mList.getAdapter() == null
+				|| !mList.getAdapter().isEnabled(position)) {
+			return;
+		}
+
+		mPosition = position;
+		mId = mList.getItemIdAtPosition(position);
+		mFired = false;
+		if (dwell <= 0) {
+			fire();
+		} else {
+			mList.postDelayed(mFireRunnable, dwell);
+		}
+	}
+
+	private void fire() {
+		if (mPosition != AdapterView.INVALID_POSITION && !mFired) {
+			mFired = true;
+			mListener.onPrefetch(mPosition, mId);
+		}
+	}
+
+	private void cancel() {
+		mList.removeCallbacks(mFireRunnable);
+		if (mFired) {
+			mListener.onPrefetchCancelled(mPosition, mId);
+		}
+		reset();
+	}
+
+	private void reset() {
+		mPosition = AdapterView.INVALID_POSITION;
+		mFired = false;
+	}
+
+	public interface PrefetchListener {
+		public void onPrefetch(int position, long id);
+
+		public void onPrefetchCancelled(int position, long id);
+	}
+}
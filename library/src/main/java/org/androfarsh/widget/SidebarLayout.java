@@ -18,6 +18,7 @@ package org.androfarsh.widget;
 import java.util.ArrayList;
 import java.util.List;
 
+import android.annotation.TargetApi;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.Resources.NotFoundException;
@@ -26,14 +27,25 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Picture;
 import android.graphics.Rect;
 import android.graphics.drawable.BitmapDrawable;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.util.TypedValue;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.Window;
+import android.view.WindowManager;
 import android.view.animation.AnimationUtils;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
@@ -41,13 +53,12 @@ import android.widget.FrameLayout;
 
 import com.nineoldandroids.animation.Animator;
 import com.nineoldandroids.animation.Animator.AnimatorListener;
-import com.nineoldandroids.animation.AnimatorSet;
-import com.nineoldandroids.animation.ObjectAnimator;
 
 public class SidebarLayout extends ViewGroup {
+	private static final String TAG = "SidebarLayout";
 	private static final String RES_TYPE_LAYOUT = "layout";
 	private static final String RES_TYPE_ID = "id";
-	private static final int SNAP_VELOCITY = 1000;
+	static final int SNAP_VELOCITY = 1000;
 	private static final int OFFSET = 50;
 
 	public static final int FIXED = 0;
@@ -63,10 +74,20 @@ public class SidebarLayout extends ViewGroup {
 
 	private static final int VERTICAL_MASK = TOP | BOTTOM;
 	private static final int RIGHT_BOTTOM_MASK = BOTTOM | RIGHT;
-	private static final float TOGLE_KOEF = 0.3f;
+	static final float TOGLE_KOEF = 0.3f;
 	private static final float SIDEBAR_SIZE = 0.8f;
+	private static final float DOCKED_SIZE = 0.3f;
 	private static final int UNKNOWN = -1;
-	private static final int DURATION = 300;
+	private static final long DRAG_FRAME_GAP_NANOS = 100000000L;
+	static final int DURATION = 300;
+	private static final long FRAME_BUDGET_NANOS = 4000000L;
+	private static final long FRAME_RATE_RELEASE_DELAY = 1000;
+	private static final float NO_PROGRESS = -1;
+	private static final int COMMAND_NONE = 0;
+	private static final int COMMAND_OPEN = 1;
+	private static final int COMMAND_CLOSE = 2;
+	private static final int COMMAND_TOGGLE = 3;
+	private static final int COMMAND_PROGRESS = 4;
 
 	private final Rect mDragRect = new Rect();
 
@@ -90,6 +111,19 @@ public class SidebarLayout extends ViewGroup {
 	private OpenListener mOpenListener;
 	private CloseListener mCloseListener;
 	private SidebarListener mSidebarListener;
+	private final List<OnRevealListener> mRevealListeners = new ArrayList<OnRevealListener>();
+	private final List<OnSlideListener> mSlideListeners = new ArrayList<OnSlideListener>();
+	private final List<Runnable> mSettleQueue = new ArrayList<Runnable>();
+	private final List<Runnable> mIdleQueue = new ArrayList<Runnable>();
+	private boolean mIdleFramePosted;
+	private final FrameClock.Callback mIdleFrameCallback = new FrameClock.Callback() {
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mIdleFramePosted = false;
+			runIdleQueue();
+		}
+	};
 
 	private boolean mSliding;
 	private int mPrevX;
@@ -112,10 +146,128 @@ public class SidebarLayout extends ViewGroup {
 
 	private boolean mInitialized;
 	private boolean mAttachToWindow;
+	private boolean mAttachToWindowOverlay;
+	private WindowOverlay mWindowOverlay;
 	private boolean mAllowDrag = true;
 	private Rect mContentRect = new Rect();
 	private Rect mSidebarRect = new Rect();
 	private boolean mCloseOnFreeSpaceTap;
+	private int mToggleFrom;
+	private PaneTransformer mPaneTransformer;
+	private boolean mInTransform;
+	private ContentSwap mContentSwap;
+	private View mDeferredSwap;
+	private Bitmap mSwapBitmap;
+	private final Runnable mDeferredSwapRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			final View view = mDeferredSwap;
+			mDeferredSwap = null;
+			if (view != null) {
+				swapContent(view);
+			}
+		}
+	};
+	private boolean mRailMode;
+	private int mRailSize;
+	private float mRailFraction;
+	private SlideAnimation mRailAnimator;
+	private final Rect mRailClip = new Rect();
+	private int mDockedMinSize;
+	private SizeResolver mDockedSizeResolver = new SizeResolver(DOCKED_SIZE,
+			TypedValue.TYPE_FRACTION);
+	private boolean mDocked;
+	private boolean mUndockedOpened;
+	private View mSizeChangeSwap;
+	private final Runnable mSizeSettle = new Runnable() {
+
+		@Override
+		public void run() {
+			settleAfterSizeChange();
+		}
+	};
+	private final Runnable mDockedUpdate = new Runnable() {
+
+		@Override
+		public void run() {
+			updateDocked();
+		}
+	};
+	private SlideAnimation mSlideAnimator;
+	private FrameClock mFrameClock = ChoreographerFrameClock.getInstance();
+	private boolean mHighFrameRate = true;
+	private boolean mFrameRateApplied;
+	private float mSavedRefreshRate;
+	private int mSavedDisplayModeId;
+	private final Runnable mFrameRateRelease = new Runnable() {
+
+		@Override
+		public void run() {
+			restoreFrameRate();
+		}
+	};
+	private float mFrameRate;
+	private int mDragFrames;
+	private long mDragFrameNanos;
+	private long mDragLastFrameNanos;
+	private final FrameClock.Callback mDragFrameCallback = new FrameClock.Callback() {
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			/* a pause of the finger is not a slow frame */
+			if (mDragLastFrameNanos != 0
+					&& frameTimeNanos - mDragLastFrameNanos <= DRAG_FRAME_GAP_NANOS) {
+				mDragFrames++;
+				mDragFrameNanos += frameTimeNanos - mDragLastFrameNanos;
+			}
+			mDragLastFrameNanos = frameTimeNanos;
+		}
+	};
+	private boolean mGestureTraced;
+	private boolean mSettleTraced;
+	private int mGestureLayoutRequests;
+	private SidebarDiagnostics mDebugDiagnostics;
+	private boolean mTouchPrewarm = true;
+	private boolean mPrewarmed;
+	private boolean mSidebarPromoted;
+	private boolean mContentPromoted;
+	private SidebarWarmup mWarmup;
+	private float mProgress = NO_PROGRESS;
+	private SlideAnimation mProgressAnimator;
+	private final Object mCommandLock = new Object();
+	private int mCommand = COMMAND_NONE;
+	private float mCommandProgress;
+	private boolean mCommandPosted;
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final Runnable mCommandRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			applyCommand();
+		}
+	};
+	private final Runnable mWindowOverlayDetach = new Runnable() {
+
+		@Override
+		public void run() {
+			detachWindowOverlay();
+		}
+	};
+	private final Runnable mCommandScheduleRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			mFrameClock.postFrameCallback(mCommandFrameCallback);
+		}
+	};
+	private final FrameClock.Callback mCommandFrameCallback = new FrameClock.Callback() {
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			applyCommand();
+		}
+	};
 
 	static class ViewHolder {
 		public ViewHolder(Context context) {
@@ -126,17 +278,28 @@ public class SidebarLayout extends ViewGroup {
 		final FrameLayout view;
 		int id = View.NO_ID;
 		BitmapDrawable viewDrawable;
+
+		void ensureDrawingCache() {
+			if ((viewDrawable == null) || viewDrawable.getBitmap().isRecycled()) {
+				createDrawingCache();
+			}
+		}
 		
 		@SuppressWarnings("deprecation")
 		void createDrawingCache() {
 			BitmapDrawable drawable = null;
-			view.buildDrawingCache();
-			final Bitmap bitmap = view.getDrawingCache();
-			if (bitmap != null) {
-				drawable = new BitmapDrawable(Bitmap.createBitmap(bitmap));
-				bitmap.recycle();
+			final boolean traced = SidebarTrace.begin(SidebarTrace.DRAWING_CACHE);
+			try {
+				view.buildDrawingCache();
+				final Bitmap bitmap = view.getDrawingCache();
+				if (bitmap != null) {
+					drawable = new BitmapDrawable(Bitmap.createBitmap(bitmap));
+					bitmap.recycle();
+				}
+				view.destroyDrawingCache();
+			} finally {
+				SidebarTrace.end(traced);
 			}
-			view.destroyDrawingCache();
 			
 			if (viewDrawable != null && viewDrawable.getBitmap() != null){
 				viewDrawable.getBitmap().recycle();
@@ -240,11 +403,22 @@ public class SidebarLayout extends ViewGroup {
 		
 		mAttachToWindow = a.getBoolean(R.styleable.SidebarLayout_attach_to_window, false);
 		
+		mAttachToWindowOverlay = a.getBoolean(R.styleable.SidebarLayout_attach_to_window_overlay, false);
+		
+		mRailSize = a.getDimensionPixelSize(R.styleable.SidebarLayout_rail_size, 0);
+		
+		mRailMode = a.getBoolean(R.styleable.SidebarLayout_rail_mode, false);
+		
+		mDockedMinSize = a.getDimensionPixelSize(R.styleable.SidebarLayout_docked_min_width, 0);
+		
+		mDockedSizeResolver = resolveFractalOrDimentionValue(a
+				.peekValue(R.styleable.SidebarLayout_docked_size), DOCKED_SIZE, TypedValue.TYPE_FRACTION);
+		
 		final int interpolatorId = a.getResourceId(
 				R.styleable.SidebarLayout_android_interpolator, UNKNOWN);
 		if (interpolatorId != UNKNOWN) {
-			mInterpolator = AnimationUtils.loadInterpolator(context,
-					interpolatorId);
+			mInterpolator = LookupTableInterpolator.wrap(AnimationUtils.loadInterpolator(context,
+					interpolatorId));
 		}
 
 		mSidebar = resolveReference(a.getResourceId(
@@ -315,6 +489,49 @@ public class SidebarLayout extends ViewGroup {
 		activity.setContentView(content);
 	}
 	
+	/*
+	 * the sidebar moves into a decor level sibling drawn above the action bar;
+	 * the decor and the content stay where they are
+	 */
+	private void attachSidebarToWindowOverlay(Activity activity) {
+		mHandler.removeCallbacks(mWindowOverlayDetach);
+		if (mWindowOverlay == null) {
+			mWindowOverlay = new WindowOverlay(getContext());
+			super.removeViewInLayout(mSidebar.view);
+			mWindowOverlay.addView(mSidebar.view, mSidebar.view.getLayoutParams());
+		}
+
+		final ViewGroup decor = (ViewGroup) activity.getWindow().getDecorView();
+		final ViewParent parent = mWindowOverlay.getParent();
+		if (parent == decor) {
+			return;
+		}
+		if (parent != null) {
+			((ViewGroup) parent).removeView(mWindowOverlay);
+		}
+		decor.addView(mWindowOverlay, new LayoutParams(LayoutParams.MATCH_PARENT,
+				LayoutParams.MATCH_PARENT));
+	}
+
+	/*
+	 * the overlay leaves the decor with the layout, so a destroyed screen does
+	 * not keep the sidebar on the window; posted, the decor may be in the
+	 * middle of detaching its children
+	 */
+	private void detachWindowOverlay() {
+		if (mWindowOverlay == null || isAttachedToWindow()) {
+			return;
+		}
+		final ViewParent parent = mWindowOverlay.getParent();
+		if (parent != null) {
+			((ViewGroup) parent).removeView(mWindowOverlay);
+		}
+	}
+
+	public boolean isAttachedToWindowOverlay() {
+		return mWindowOverlay != null;
+	}
+
 	private ViewHolder resolveReference(final int ref, LayoutParams lp) {
 		final ViewHolder viewHolder = new ViewHolder(getContext());
 		super.addView(viewHolder.view, UNKNOWN, lp != null ? lp : generateDefaultLayoutParams());
@@ -383,11 +600,37 @@ public class SidebarLayout extends ViewGroup {
 		mInitialized = true;
 	}
 	
+	@Override
+	protected void onDetachedFromWindow() {
+		if (mIdleFramePosted) {
+			mFrameClock.removeFrameCallback(mIdleFrameCallback);
+			mIdleFramePosted = false;
+		}
+		mFrameClock.removeFrameCallback(mDragFrameCallback);
+		if (mWarmup != null) {
+			mWarmup.cancel();
+			mWarmup = null;
+		}
+		if (mWindowOverlay != null) {
+			mHandler.post(mWindowOverlayDetach);
+		}
+		mHandler.removeCallbacks(mFrameRateRelease);
+		restoreFrameRate();
+		recycleSwapBitmap();
+		super.onDetachedFromWindow();
+	}
+
 	@Override
 	protected void onAttachedToWindow() {
 		super.onAttachedToWindow();
+
+		if (!mIdleQueue.isEmpty() && isSettled()) {
+			postIdleFrame();
+		}
 		
-		if (mAttachToWindow && (getContext() instanceof Activity)){
+		if (mAttachToWindowOverlay && (getContext() instanceof Activity)){
+			attachSidebarToWindowOverlay((Activity)getContext());
+		} else if (mAttachToWindow && (getContext() instanceof Activity)){
 			attachSidebarToWindow((Activity)getContext());
 		}
 	}
@@ -400,7 +643,12 @@ public class SidebarLayout extends ViewGroup {
 
 	@Override
 	public void onLayout(boolean changed, int l, int t, int r, int b) {
-		resolveLayout(l, t, r, b);
+		final boolean traced = SidebarTrace.begin(SidebarTrace.LAYOUT);
+		try {
+			resolveLayout(l, t, r, b);
+		} finally {
+			SidebarTrace.end(traced);
+		}
 	}
 
 	private void resolveLayout(int l, int t, int r, int b) {
@@ -454,7 +702,24 @@ public class SidebarLayout extends ViewGroup {
 			break;
 		}
 
-		if (mSidebar.view.getVisibility() != View.GONE) {
+		if (mRailMode || mDocked) {
+			/* anchored at full size, the rail clip shows the rail part */
+			switch (mAlign) {
+			case BOTTOM:
+				mSidebarRect.offsetTo(0, height - mSidebarHeight);
+				break;
+			case RIGHT:
+				mSidebarRect.offsetTo(width - mSidebarWidth, 0);
+				break;
+			default:
+				mSidebarRect.offsetTo(0, 0);
+				break;
+			}
+		}
+
+		if (mWindowOverlay != null) {
+			mWindowOverlay.layoutSidebar();
+		} else if (mSidebar.view.getVisibility() != View.GONE) {
 			mSidebar.view.layout(mSidebarRect.left, mSidebarRect.top,
 					mSidebarRect.right, mSidebarRect.bottom);
 		}
@@ -464,6 +729,10 @@ public class SidebarLayout extends ViewGroup {
 		}
 
 		updateDragRect(mContentRect, mSidebarRect);
+
+		if (mRailMode && !mDocked) {
+			applyRail(mRailFraction);
+		}
 	}
 
 	private void updateDragRect(Rect contentRect, Rect sidebarRect) {
@@ -502,7 +771,7 @@ public class SidebarLayout extends ViewGroup {
 
 	private void resolveSidebarLayout(Rect result,
 			int sidebarSize) {
-		if (getSidebarMode() != FIXED) {
+		if (getSidebarMode() != FIXED && !mDocked) {
 			int offcet = -sidebarSize;
 			if (mSliding) {
 				offcet = -(sidebarSize - Math.abs(mDelta));
@@ -520,7 +789,7 @@ public class SidebarLayout extends ViewGroup {
 	
 	private void resolveContentLayout(Rect result,
 			int sidebarSize) {
-		if (getContentMode() != FIXED) {
+		if (getContentMode() != FIXED && !mDocked) {
 			int offcet = 0;
 			if (mSliding) {
 				offcet = mDelta;
@@ -538,12 +807,31 @@ public class SidebarLayout extends ViewGroup {
 
 	@Override
 	public void onMeasure(int w, int h) {
+		final boolean traced = SidebarTrace.begin(SidebarTrace.MEASURE);
+		try {
+			resolveMeasure(w, h);
+		} finally {
+			SidebarTrace.end(traced);
+		}
+	}
+
+	private void resolveMeasure(int w, int h) {
 		super.onMeasure(w, h);
 		
 		final boolean v = (mAlign & VERTICAL_MASK) > 0;
-		mOffset = mOffsetResolver.resolveSize(v ? getMeasuredHeight() : getMeasuredWidth());
-		
-		super.measureChildren(w, h);
+		if (mDocked) {
+			/* the content takes whatever the sidebar leaves */
+			measureSidebar(w, h);
+			mOffset = v ? mSidebar.view.getMeasuredHeight() : mSidebar.view.getMeasuredWidth();
+			measureChild(mContent.view, w, h);
+		} else {
+			mOffset = mRailMode ? mRailSize : mOffsetResolver.resolveSize(v ? getMeasuredHeight() : getMeasuredWidth());
+			
+			super.measureChildren(w, h);
+			if (mWindowOverlay != null) {
+				mWindowOverlay.measureSidebar(w, h);
+			}
+		}
 		
 		mSidebarWidth = mSidebar.view.getMeasuredWidth();
 		mSidebarHeight = mSidebar.view.getMeasuredHeight();
@@ -551,6 +839,64 @@ public class SidebarLayout extends ViewGroup {
 		mToggle = (int) (mToggleFactor * getSidebarSize());
 	}
 
+	/*
+	 * rotation or window resize handled in place: fraction sizes are resolved
+	 * again by the next measure, the open state is kept and what depends on
+	 * the old size is dropped and rebuilt lazily
+	 */
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		if (oldw == 0 && oldh == 0) {
+			scheduleDockedUpdate();
+			return;
+		}
+
+		/* listeners and settle actions must not run inside layout */
+		mHandler.removeCallbacks(mSizeSettle);
+		mHandler.post(mSizeSettle);
+
+		mContent.recycleDrawingCache();
+		if (mContentSwap != null) {
+			/* captured at the old size, captured again by the settle step */
+			final View pending = mContentSwap.view;
+			cancelContentSwap();
+			mSizeChangeSwap = pending;
+		}
+		scheduleDockedUpdate();
+	}
+
+	/* lands on the state it was heading to, mOpened already holds it */
+	private void settleAfterSizeChange() {
+		if (mSlideAnimator != null) {
+			mSlideAnimator.end();
+		}
+		if (mRailAnimator != null) {
+			mRailAnimator.end();
+		}
+		if (mProgressAnimator != null) {
+			mProgressAnimator.end();
+		}
+		clearProgress();
+		if (mSliding) {
+			mSliding = false;
+			endGestureTrace();
+			mDelta = 0;
+			if (mVelocityTracker != null) {
+				mVelocityTracker.recycle();
+				mVelocityTracker = null;
+			}
+			dispatchSlideProgress(mOpened ? 1 : 0);
+			onSettled();
+		}
+
+		if (mSizeChangeSwap != null) {
+			final View pending = mSizeChangeSwap;
+			mSizeChangeSwap = null;
+			swapContent(pending);
+		}
+	}
+
 	@Override
 	protected void dispatchDraw(Canvas canvas) {
 		super.dispatchDraw(canvas);
@@ -559,12 +905,47 @@ public class SidebarLayout extends ViewGroup {
 			final Paint paint = new Paint();
 			paint.setColor(0x6600cc00);
 			canvas.drawRect(mDragRect, paint);
+			drawDiagnostics(canvas);
+		}
+	}
+
+	private void drawDiagnostics(Canvas canvas) {
+		/* taken once settled, walking the panes every frame would skew them */
+		if (mDebugDiagnostics == null) {
+			if (!isSettled()) {
+				return;
+			}
+			mDebugDiagnostics = getDiagnostics();
 		}
+
+		final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 10,
+				getResources().getDisplayMetrics()));
+		paint.setColor(mDebugDiagnostics.hasWarnings() ? 0xccff3300 : 0xcc00cc00);
+		final float lineHeight = paint.getFontSpacing();
+		float y = getHeight() - lineHeight;
+		final String[] lines = mDebugDiagnostics.toString().split("\n");
+		for (int i = lines.length - 1; i >= 0; i--) {
+			canvas.drawText(lines[i], lineHeight / 2, y, paint);
+			y -= lineHeight;
+		}
+	}
+
+	/*
+	 * walks both panes: view count, depth, overdraw estimate and nested
+	 * weights, plus the layout requests made by their contents during the
+	 * last drag or animation
+	 */
+	public SidebarDiagnostics getDiagnostics() {
+		return new SidebarDiagnostics(mSidebar.view, mContent.view, mGestureLayoutRequests);
 	}
 	
 	@Override
 	protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
-		if (child == mContent.view && mOpened && !mSliding && !mToggling) {
+		if (child == mContent.view && mToggling && !mOpened
+				&& mContentSwap != null && mContentSwap.isCaptured()) {
+			return drawContentCrossfade(canvas);
+		} else if (child == mContent.view && mOpened && !mSliding && !mToggling && !mDocked) {
 			return drawChildDrawable(mContent, mContentRect, canvas);
 		} else {
 			return super.drawChild(canvas, child, drawingTime);
@@ -572,28 +953,73 @@ public class SidebarLayout extends ViewGroup {
 	}
 
 	private boolean drawChildDrawable(ViewHolder holder, Rect rect, Canvas canvas) {
+		final boolean traced = SidebarTrace.begin(SidebarTrace.DRAW_CACHED);
 		final int saveCount = canvas.getSaveCount();
 		canvas.save();
-		canvas.clipRect(rect);
+		try {
+			canvas.clipRect(rect);
+
+			holder.ensureDrawingCache();
 
-		if ((holder.viewDrawable == null) || holder.viewDrawable.getBitmap().isRecycled()) {
-			holder.createDrawingCache();
+			if (holder.view.getMatrix().isIdentity()) {
+				holder.viewDrawable.setBounds(rect);
+			} else {
+				/* keep what a PaneTransformer set on the pane */
+				canvas.translate(rect.left, rect.top);
+				canvas.concat(holder.view.getMatrix());
+				holder.viewDrawable.setBounds(0, 0, rect.width(), rect.height());
+			}
+			holder.viewDrawable.setAlpha((int) (255 * holder.view.getAlpha()));
+			holder.viewDrawable.draw(canvas);
+		} finally {
+			canvas.restoreToCount(saveCount);
+			SidebarTrace.end(traced);
 		}
-		
-		holder.viewDrawable.setBounds(rect);
-		holder.viewDrawable.draw(canvas);
+		return true;
+	}
+
+	private boolean drawContentCrossfade(Canvas canvas) {
+		final View animated = getContentMode() == SLIDE ? mContent.view : mSidebar.view;
+		final float translation = (mAlign & VERTICAL_MASK) > 0 ? animated
+				.getTranslationY() : animated.getTranslationX();
+		final float fraction = mToggleFrom != 0 ? Math.max(0,
+				Math.min(1, 1 - translation / mToggleFrom)) : 1;
+
+		final int saveCount = canvas.save();
+		canvas.clipRect(mContentRect);
+		canvas.translate(mContent.view.getTranslationX(), mContent.view.getTranslationY());
+
+		mContent.ensureDrawingCache();
+		mContent.viewDrawable.setBounds(mContentRect);
+		mContent.viewDrawable.setAlpha((int) (255 * (1 - fraction)));
+		mContent.viewDrawable.draw(canvas);
+		mContent.viewDrawable.setAlpha(255);
+
+		mContentSwap.snapshot.setBounds(mContentRect);
+		mContentSwap.snapshot.setAlpha((int) (255 * fraction));
+		mContentSwap.snapshot.draw(canvas);
+		mContentSwap.snapshot.setAlpha(255);
 
 		canvas.restoreToCount(saveCount);
 		return true;
 	}
 
+	private void measureSidebar(int w, int h) {
+		if (mWindowOverlay != null) {
+			mWindowOverlay.measureSidebar(w, h);
+		} else {
+			measureChild(mSidebar.view, w, h);
+		}
+	}
+
 	@Override
 	protected void measureChild(View child, int parentWSpec, int parentHSpec) {
 		if (child == mSidebar.view) {
+			final SizeResolver sizeResolver = mDocked ? mDockedSizeResolver : mSizeResolver;
 			if ((mAlign & VERTICAL_MASK) > 0) {
-				parentHSpec = mSizeResolver.resolveSpec(parentHSpec);
+				parentHSpec = sizeResolver.resolveSpec(parentHSpec);
 			} else {
-				parentWSpec = mSizeResolver.resolveSpec(parentWSpec);
+				parentWSpec = sizeResolver.resolveSpec(parentWSpec);
 			}
 		} else if (child == mContent.view){
 			if ((mAlign & VERTICAL_MASK) > 0) {
@@ -612,7 +1038,7 @@ public class SidebarLayout extends ViewGroup {
 	
 	@Override
 	public boolean onTouchEvent(MotionEvent ev) {
-		if (!mAllowDrag){
+		if (!mAllowDrag || mRailMode || mDocked){
 			return super.onInterceptTouchEvent(ev);
 		}
 		
@@ -630,12 +1056,24 @@ public class SidebarLayout extends ViewGroup {
 		case MotionEvent.ACTION_DOWN:
 			if (!mSliding && mDragRect.contains(x, y)) {
 				mSliding = true;
+				mGestureLayoutRequests = 0;
+				mGestureTraced = SidebarTrace.beginAsync(SidebarTrace.GESTURE, System.identityHashCode(this));
+				beginDragFrameRate();
+				prewarm();
+				requestHighFrameRate();
 				
 				mPrevX = x;
 				mPrevY = y;
 
-				if (!mOpened) {
+				if (isProgressHeld()) {
+					/* the drag picks up from the held position */
+					cancelProgressAnimation();
+					mDelta = getCurrentDelta();
+					clearProgress();
+					requestLayout();
+				} else if (!mOpened) {
 					mDelta = 0;
+					dispatchReveal();
 				} else {
 					mDelta = ((mAlign & RIGHT_BOTTOM_MASK) > 0 ? -1 : 1)
 							* getSidebarSize();
@@ -646,20 +1084,28 @@ public class SidebarLayout extends ViewGroup {
 			break;
 		case MotionEvent.ACTION_MOVE:
 			if (mSliding) {
-				int newDelta;
-				if ((mAlign & VERTICAL_MASK) > 0) {
-					newDelta = validteDelta(mDelta + (y - mPrevY));
-				} else {
-					newDelta = validteDelta(mDelta + (x - mPrevX));
-				}
+				final boolean traced = SidebarTrace.begin(SidebarTrace.DRAG_MOVE);
+				try {
+					int newDelta;
+					if ((mAlign & VERTICAL_MASK) > 0) {
+						newDelta = validteDelta(mDelta + (y - mPrevY));
+					} else {
+						newDelta = validteDelta(mDelta + (x - mPrevX));
+					}
 
-				mPrevX = x;
-				mPrevY = y;
+					mPrevX = x;
+					mPrevY = y;
 
-				if (mDelta != newDelta) {
-					mDelta = newDelta;
-					requestLayout();
-					invalidate();
+					if (mDelta != newDelta) {
+						prewarmSnapshot();
+						mFrameClock.postFrameCallback(mDragFrameCallback);
+						mDelta = newDelta;
+						requestLayout();
+						invalidate();
+						dispatchSlideProgress(toOpenFraction(mDelta));
+					}
+				} finally {
+					SidebarTrace.end(traced);
 				}
 				return true;
 			}
@@ -668,13 +1114,17 @@ public class SidebarLayout extends ViewGroup {
 		case MotionEvent.ACTION_UP:
 			if (mSliding) {
 				mSliding = false;
+				endGestureTrace();
 
 				mVelocityTracker.computeCurrentVelocity(SNAP_VELOCITY,
 						mMaximumFlingVelocity);
 
 				final float velocity = ((mAlign & VERTICAL_MASK) > 0) ? mVelocityTracker
 						.getYVelocity() : mVelocityTracker.getXVelocity();
+				/* the settle after a drag counts as the same gesture */
+				final int dragLayoutRequests = mGestureLayoutRequests;
 				toggleSidebar(mDelta, velocity, false);
+				mGestureLayoutRequests += dragLayoutRequests;
 
 				mVelocityTracker.recycle();
 				mVelocityTracker = null;
@@ -711,7 +1161,7 @@ public class SidebarLayout extends ViewGroup {
 
 	@Override
 	public boolean onInterceptTouchEvent(MotionEvent ev) {
-		if (!mAllowDrag){
+		if (!mAllowDrag || mRailMode || mDocked){
 			return super.onInterceptTouchEvent(ev);
 		}
 		
@@ -720,11 +1170,22 @@ public class SidebarLayout extends ViewGroup {
 
 		if (!mSliding && mDragRect.contains(x, y)) {
 			mSliding = true;
+			mGestureLayoutRequests = 0;
+			mGestureTraced = SidebarTrace.beginAsync(SidebarTrace.GESTURE, System.identityHashCode(this));
+			beginDragFrameRate();
+			prewarm();
+			requestHighFrameRate();
 			mPrevX = x;
 			mPrevY = y;
 
-			if (!mOpened) {
+			if (isProgressHeld()) {
+				cancelProgressAnimation();
+				mDelta = getCurrentDelta();
+				clearProgress();
+				requestLayout();
+			} else if (!mOpened) {
 				mDelta = 0;
+				dispatchReveal();
 			} else {
 				mDelta = ((mAlign & RIGHT_BOTTOM_MASK) > 0 ? -1 : 1) * getSidebarSize();
 			}
@@ -736,167 +1197,1034 @@ public class SidebarLayout extends ViewGroup {
 		mSidebarListener = l;
 	}
 
-	/* to see if the Sidebar is visible */
-	public boolean isOpened() {
-		return mOpened;
-	}
-
-	private void toggleSidebar(int from, float velocity, boolean toggled) {
-		if (mToggling) {
-			return;
+	public void addOnRevealListener(OnRevealListener l) {
+		if (l != null && !mRevealListeners.contains(l)) {
+			mRevealListeners.add(l);
 		}
-		
-		final int sidebarSize = getSidebarSizeWithOutOffset();
-
-		final boolean rbAlign = (mAlign & RIGHT_BOTTOM_MASK) > 0;
+	}
 
-		final AnimatorListener listener;
+	public void removeOnRevealListener(OnRevealListener l) {
+		mRevealListeners.remove(l);
+	}
 
-		if (!toggled) {
-			final boolean needOpen;
-			if (Math.abs(velocity) > 1000) {
-				needOpen = rbAlign ? (velocity < 0) : (velocity > 0);
-			} else {
-				needOpen = Math.abs(from) > mToggle;
-			}
-			listener = needOpen ? mOpenListener : mCloseListener;
-			if (needOpen) {
-				from = (rbAlign ? sidebarSize + from : from - sidebarSize);
+	private void dispatchReveal() {
+		final boolean traced = SidebarTrace.begin(SidebarTrace.DISPATCH);
+		try {
+			for (int i = mRevealListeners.size() - 1; i >= 0; i--) {
+				mRevealListeners.get(i).onSidebarReveal();
 			}
-			mOpened = needOpen;
-		} else if (mOpened) {
-			mOpened = false;
-			from = (rbAlign ? -1 : 1) * sidebarSize;
-			listener = mCloseListener;
-		} else {
-			mOpened = true;
-			from = (rbAlign ? 1 : -1) * sidebarSize;
-			listener = mOpenListener;
+		} finally {
+			SidebarTrace.end(traced);
 		}
+	}
 
-		if (from == 0) {
-			listener.onAnimationEnd(null);
-		} else {
-			mToggling = true;
-			requestLayout();
-
-			final int duration = (int) (this.mDuration * (Math.abs(from) / (float) sidebarSize));
-			final String translation = (mAlign & VERTICAL_MASK) > 0 ? "translationY"
-					: "translationX";
-			final List<Animator> animators = new ArrayList<Animator>();
-			if (getSidebarMode() == SLIDE) {
-				ObjectAnimator animator = ObjectAnimator.ofFloat(mSidebar.view,
-						translation, from, 0);
-				animator.setDuration(duration);
-				animator.setInterpolator(mInterpolator);
-				animator.addListener(listener);
-				animators.add(animator);
-			}
-
-			if (getContentMode() == SLIDE) {
-				ObjectAnimator animator = ObjectAnimator.ofFloat(mContent.view,
-						translation, from, 0);
-				animator.setDuration(duration);
-				animator.setInterpolator(mInterpolator);
-				animator.addListener(listener);
-				animators.add(animator);
-			}
+	private void beginDragFrameRate() {
+		mDragFrames = 0;
+		mDragFrameNanos = 0;
+		mDragLastFrameNanos = 0;
+	}
 
-			final AnimatorSet animSet = new AnimatorSet();
-			animSet.addListener(listener);
-			animSet.setDuration(duration);
-			animSet.setInterpolator(mInterpolator);
-			animSet.playTogether(animators);
-			animSet.start();
+	/* frames the drag moved the panes in, at least two in a row to count */
+	private void endDragFrameRate() {
+		mFrameClock.removeFrameCallback(mDragFrameCallback);
+		if (mDragFrames > 0 && mDragFrameNanos > 0) {
+			mFrameRate = mDragFrames * 1e9f / mDragFrameNanos;
 		}
+		beginDragFrameRate();
 	}
 
-	private int getSidebarSize() {
-		return (mAlign & VERTICAL_MASK) > 0 ? mSidebarHeight
-				: mSidebarWidth;
+	private void endGestureTrace() {
+		endDragFrameRate();
+		SidebarTrace.endAsync(mGestureTraced, SidebarTrace.GESTURE, System.identityHashCode(this));
+		mGestureTraced = false;
 	}
-	
-	private int getSidebarSizeWithOutOffset() {
-		return getSidebarSize() - mOffset;
+
+	private void dispatchSidebarState(boolean opened) {
+		if (mSidebarListener == null) {
+			return;
+		}
+		final boolean traced = SidebarTrace.begin(SidebarTrace.DISPATCH);
+		try {
+			if (opened) {
+				mSidebarListener.onSidebarOpened();
+			} else {
+				mSidebarListener.onSidebarClosed();
+			}
+		} finally {
+			SidebarTrace.end(traced);
+		}
 	}
 
-	public void toggleSidebar() {
-		toggleSidebar(-1, 0, true);
+	/* no drag in progress and no open/close animation running */
+	public boolean isSettled() {
+		return !mSliding && !mToggling;
 	}
 
-	public void openSidebar() {
-		if (!mOpened) {
-			toggleSidebar();
+	/* run once the current drag or animation has settled, main thread only */
+	public void runAfterSettle(Runnable action) {
+		if (isSettled()) {
+			post(action);
+		} else {
+			mSettleQueue.add(action);
 		}
 	}
 
-	public void closeSidebar() {
-		if (mOpened) {
-			toggleSidebar();
+	/*
+	 * like runAfterSettle(), but the queue is drained a few actions per frame,
+	 * within a small time budget, and pauses while the sidebar moves
+	 */
+	public void runWhenIdle(Runnable action) {
+		mIdleQueue.add(action);
+		if (isSettled()) {
+			postIdleFrame();
 		}
 	}
 
-	@Override
-	public void addView(View child, int index, LayoutParams params) {
-		final int id = child.getId();
-		if (id != View.NO_ID) {
-			if ((mSidebar != null) && (mSidebar.id == id)) {
-				mSidebar.view.removeAllViews(); 
-				mSidebar.view.addView(child);
-				return;
-			}
-
-			if ((mContent != null) && (mContent.id == id)) {
-				mContent.view.removeAllViews(); 
-				mContent.view.addView(child);
-				return;
-			}
+	public void cancelPending(Runnable action) {
+		while (mSettleQueue.remove(action)) {
 		}
-		throw new UnsupportedOperationException();
+		while (mIdleQueue.remove(action)) {
+		}
+		removeCallbacks(action);
 	}
 
-	@Override
-	public void removeView(View view) {
-		throw new UnsupportedOperationException();
+	public boolean isTouchPrewarm() {
+		return mTouchPrewarm;
 	}
 
-	@Override
-	public void removeViewAt(int index) {
-		throw new UnsupportedOperationException();
+	/* prepare the panes on the touch down that may start a drag */
+	public void setTouchPrewarm(boolean prewarm) {
+		mTouchPrewarm = prewarm;
 	}
 
-	@Override
-	public void removeViewInLayout(View view) {
-		throw new UnsupportedOperationException();
-	}
+	/*
+	 * only the cheap part on touch down: the moving panes get hardware layers
+	 * built. The open state snapshot waits for the drag to be confirmed
+	 */
+	private void prewarm() {
+		if (!mTouchPrewarm || mPrewarmed) {
+			return;
+		}
+		mPrewarmed = true;
 
-	@Override
-	public void removeViews(int start, int count) {
-		throw new UnsupportedOperationException();
+		mSidebarPromoted = promoteLayer(mSidebar.view);
+		mContentPromoted = promoteLayer(mContent.view);
 	}
 
-	@Override
-	public void removeViewsInLayout(int start, int count) {
-		throw new UnsupportedOperationException();
+	private static boolean promoteLayer(View view) {
+		if (view.getLayerType() != View.LAYER_TYPE_NONE) {
+			return false;
+		}
+		view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+		if (view.isAttachedToWindow() && view.getWidth() > 0) {
+			view.buildLayer();
+		}
+		return true;
 	}
 
-	@Override
-	public void removeAllViews() {
-		throw new UnsupportedOperationException();
+	/* the first move of a drag from closed */
+	private void prewarmSnapshot() {
+		if (mPrewarmed && !mOpened && mContent.view.getWidth() > 0) {
+			mContent.ensureDrawingCache();
+		}
 	}
 
-	@Override
-	public void removeAllViewsInLayout() {
-		throw new UnsupportedOperationException();
-	}
+	/*
+	 * back to no layer where it was promoted and the app did not change it
+	 * meanwhile; a tap or a drag back drops the unused snapshot
+	 */
+	private void releasePrewarm() {
+		if (!mPrewarmed) {
+			return;
+		}
+		mPrewarmed = false;
 
-	public int getAlign() {
-		return mAlign;
+		if (mSidebarPromoted && mSidebar.view.getLayerType() == View.LAYER_TYPE_HARDWARE) {
+			mSidebar.view.setLayerType(View.LAYER_TYPE_NONE, null);
+		}
+		if (mContentPromoted && mContent.view.getLayerType() == View.LAYER_TYPE_HARDWARE) {
+			mContent.view.setLayerType(View.LAYER_TYPE_NONE, null);
+		}
+		mSidebarPromoted = false;
+		mContentPromoted = false;
+		if (!mOpened && mContentSwap == null) {
+			mContent.recycleDrawingCache();
+		}
 	}
 
-	public void setAlign(int align) {
-		if (this.mAlign != align) {
-			switch (align) {
+	private void onSettled() {
+		if (!isSettled()) {
+			return;
+		}
+		releasePrewarm();
+		releaseHighFrameRate();
+		mDebugDiagnostics = null;
+		if (mDebugMode) {
+			invalidate();
+		}
+
+		if (!mSettleQueue.isEmpty()) {
+			final Runnable[] actions = mSettleQueue.toArray(new Runnable[mSettleQueue.size()]);
+			mSettleQueue.clear();
+			for (Runnable action : actions) {
+				action.run();
+			}
+		}
+		if (!mIdleQueue.isEmpty()) {
+			postIdleFrame();
+		}
+	}
+
+	private void postIdleFrame() {
+		if (!mIdleFramePosted) {
+			mIdleFramePosted = true;
+			mFrameClock.postFrameCallback(mIdleFrameCallback);
+		}
+	}
+
+	private void runIdleQueue() {
+		final long start = System.nanoTime();
+		while (!mIdleQueue.isEmpty() && isSettled()) {
+			mIdleQueue.remove(0).run();
+			if (System.nanoTime() - start > FRAME_BUDGET_NANOS) {
+				break;
+			}
+		}
+		if (!mIdleQueue.isEmpty() && isSettled()) {
+			postIdleFrame();
+		}
+	}
+
+	/* to see if the Sidebar is visible */
+	public boolean isOpened() {
+		return mOpened;
+	}
+
+	/* true while any part of the sidebar can be on screen */
+	public boolean isSidebarVisible() {
+		return mSidebar.view.getVisibility() == View.VISIBLE
+				&& (mOpened || mSliding || mToggling || mRailMode || mDocked
+						|| (isProgressHeld() && mProgress > 0));
+	}
+
+	private void toggleSidebar(int from, float velocity, boolean toggled) {
+		if (mToggling) {
+			return;
+		}
+
+		final boolean rbAlign = (mAlign & RIGHT_BOTTOM_MASK) > 0;
+
+		if (!toggled) {
+			final boolean needOpen = settlesForward(Math.abs(from), mToggle,
+					rbAlign ? -velocity : velocity);
+			animateSidebar(from, needOpen);
+		} else {
+			final boolean open = isProgressHeld() ? mProgress < 0.5f : !mOpened;
+			if (open && !mOpened && !isProgressHeld()) {
+				dispatchReveal();
+			}
+			animateSidebar(getCurrentDelta(), open);
+		}
+	}
+
+	/*
+	 * where a released drag settles: a fling by its direction, otherwise past
+	 * the threshold. Velocity is positive towards the forward end
+	 */
+	static boolean settlesForward(float distance, float threshold, float velocity) {
+		if (Math.abs(velocity) > SNAP_VELOCITY) {
+			return velocity > 0;
+		}
+		return distance > threshold;
+	}
+
+	/* delta is the distance from the closed position, as during a drag */
+	private void animateSidebar(int from, boolean open) {
+		final boolean traced = SidebarTrace.begin(SidebarTrace.TOGGLE);
+		try {
+			slideSidebar(from, open);
+		} finally {
+			SidebarTrace.end(traced);
+		}
+	}
+
+	private void slideSidebar(int from, boolean open) {
+		final int sidebarSize = getSidebarSizeWithOutOffset();
+		final boolean rbAlign = (mAlign & RIGHT_BOTTOM_MASK) > 0;
+		final AnimatorListener listener = open ? mOpenListener : mCloseListener;
+		if (open) {
+			from = (rbAlign ? sidebarSize + from : from - sidebarSize);
+		}
+		mOpened = open;
+		/* the animation takes over from the held translation */
+		mProgress = NO_PROGRESS;
+
+		if (from == 0) {
+			setPaneTranslation(0);
+			listener.onAnimationEnd(null);
+		} else {
+			mToggling = true;
+			mGestureLayoutRequests = 0;
+			mToggleFrom = from;
+			requestLayout();
+
+			final int duration = (int) (this.mDuration * (Math.abs(from) / (float) sidebarSize));
+			requestHighFrameRate();
+			mSettleTraced = SidebarTrace.beginAsync(SidebarTrace.SETTLE, System.identityHashCode(this));
+			mSlideAnimator = new SlideAnimation(mFrameClock, from, 0, duration, mInterpolator,
+					new SlideAnimation.Target() {
+
+						@Override
+						public void onPosition(float value) {
+							setPaneTranslation(value);
+							final float fraction = toOpenFraction(value);
+							dispatchSlideProgress(mOpened ? 1 - fraction : fraction);
+						}
+
+						@Override
+						public void onEnd(boolean cancelled) {
+							mFrameRate = mSlideAnimator.getFrameRate();
+							mSlideAnimator = null;
+							SidebarTrace.endAsync(mSettleTraced, SidebarTrace.SETTLE,
+									System.identityHashCode(SidebarLayout.this));
+							mSettleTraced = false;
+							listener.onAnimationEnd(null);
+						}
+					});
+			mSlideAnimator.start();
+		}
+	}
+
+	public FrameClock getFrameClock() {
+		return mFrameClock;
+	}
+
+	/*
+	 * clock the open/close, rail and progress animations, the idle queue, the
+	 * content swap steps and posted commands run on; a ManualFrameClock makes
+	 * them step only when told to
+	 */
+	public void setFrameClock(FrameClock clock) {
+		if (clock == null) {
+			throw new NullPointerException();
+		}
+
+		/* pending frame work follows to the new clock */
+		final FrameClock previous = mFrameClock;
+		previous.removeFrameCallback(mDragFrameCallback);
+		mFrameClock = clock;
+		if (mIdleFramePosted) {
+			previous.removeFrameCallback(mIdleFrameCallback);
+			clock.postFrameCallback(mIdleFrameCallback);
+		}
+		if (mContentSwap != null) {
+			mContentSwap.moveClock(previous, clock);
+		}
+		synchronized (mCommandLock) {
+			if (mCommandPosted) {
+				previous.removeFrameCallback(mCommandFrameCallback);
+				clock.postFrameCallback(mCommandFrameCallback);
+			}
+		}
+
+		/* after the swap, whatever the settle actions start runs on the new clock */
+		if (mSlideAnimator != null) {
+			mSlideAnimator.end();
+		}
+		if (mRailAnimator != null) {
+			mRailAnimator.end();
+		}
+		if (mProgressAnimator != null) {
+			mProgressAnimator.end();
+		}
+	}
+
+	/* frames per second the last drag or open/close animation reached */
+	public float getEffectiveFrameRate() {
+		return mFrameRate;
+	}
+
+	public boolean isHighFrameRate() {
+		return mHighFrameRate;
+	}
+
+	/*
+	 * ask the window for the highest refresh rate of the display while the
+	 * sidebar is dragged or settles, the app preference is restored a moment
+	 * after it settled so back to back gestures keep the mode
+	 */
+	public void setHighFrameRate(boolean highFrameRate) {
+		mHighFrameRate = highFrameRate;
+		if (!highFrameRate) {
+			mHandler.removeCallbacks(mFrameRateRelease);
+			restoreFrameRate();
+		}
+	}
+
+	/* every change relayouts the window, so at most once per gesture and only if it differs */
+	private void requestHighFrameRate() {
+		mHandler.removeCallbacks(mFrameRateRelease);
+		if (!mHighFrameRate || mFrameRateApplied
+				|| !(getContext() instanceof Activity) || getDisplay() == null) {
+			return;
+		}
+
+		final Window window = ((Activity) getContext()).getWindow();
+		final WindowManager.LayoutParams lp = window.getAttributes();
+		final boolean changed = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+				? applyHighDisplayMode(lp) : applyHighRefreshRate(lp);
+		if (changed) {
+			mFrameRateApplied = true;
+			window.setAttributes(lp);
+		}
+	}
+
+	@TargetApi(Build.VERSION_CODES.M)
+	private boolean applyHighDisplayMode(WindowManager.LayoutParams lp) {
+		final Display.Mode current = getDisplay().getMode();
+		Display.Mode highest = current;
+		for (Display.Mode mode : getDisplay().getSupportedModes()) {
+			if (mode.getPhysicalWidth() == current.getPhysicalWidth()
+					&& mode.getPhysicalHeight() == current.getPhysicalHeight()
+					&& mode.getRefreshRate() > highest.getRefreshRate()) {
+				highest = mode;
+			}
+		}
+		if (lp.preferredDisplayModeId == highest.getModeId()
+				|| (lp.preferredDisplayModeId == 0 && highest == current)) {
+			return false;
+		}
+		mSavedDisplayModeId = lp.preferredDisplayModeId;
+		lp.preferredDisplayModeId = highest.getModeId();
+		return true;
+	}
+
+	@SuppressWarnings("deprecation")
+	private boolean applyHighRefreshRate(WindowManager.LayoutParams lp) {
+		float highest = 0;
+		for (float rate : getDisplay().getSupportedRefreshRates()) {
+			highest = Math.max(highest, rate);
+		}
+		if (highest <= lp.preferredRefreshRate || highest <= getDisplay().getRefreshRate()) {
+			return false;
+		}
+		mSavedRefreshRate = lp.preferredRefreshRate;
+		lp.preferredRefreshRate = highest;
+		return true;
+	}
+
+	private void releaseHighFrameRate() {
+		if (mFrameRateApplied) {
+			mHandler.removeCallbacks(mFrameRateRelease);
+			mHandler.postDelayed(mFrameRateRelease, FRAME_RATE_RELEASE_DELAY);
+		}
+	}
+
+	private void restoreFrameRate() {
+		if (!mFrameRateApplied || !(getContext() instanceof Activity)) {
+			return;
+		}
+		final Window window = ((Activity) getContext()).getWindow();
+		final WindowManager.LayoutParams lp = window.getAttributes();
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+			lp.preferredDisplayModeId = mSavedDisplayModeId;
+		} else {
+			lp.preferredRefreshRate = mSavedRefreshRate;
+		}
+		mFrameRateApplied = false;
+		window.setAttributes(lp);
+	}
+
+	private int getSidebarSize() {
+		return (mAlign & VERTICAL_MASK) > 0 ? mSidebarHeight
+				: mSidebarWidth;
+	}
+	
+	private int getSidebarSizeWithOutOffset() {
+		return getSidebarSize() - mOffset;
+	}
+
+	private float toOpenFraction(float distance) {
+		final int size = getSidebarSizeWithOutOffset();
+		return size > 0 ? Math.min(1, Math.abs(distance) / size) : 0;
+	}
+
+	private int getCurrentDelta() {
+		final float fraction = isProgressHeld() ? mProgress : (mOpened ? 1 : 0);
+		return Math.round(((mAlign & RIGHT_BOTTOM_MASK) > 0 ? -1 : 1) * fraction
+				* getSidebarSizeWithOutOffset());
+	}
+
+	private boolean isProgressHeld() {
+		return mProgress != NO_PROGRESS;
+	}
+
+	/*
+	 * hold the panes at an open fraction through translation only, relative
+	 * to where the last layout put them; drags and animations take over from
+	 * the held position
+	 */
+	private void applySidebarProgress(float fraction) {
+		if (mRailMode || mDocked || !isSettled()) {
+			return;
+		}
+		holdProgress(fraction);
+	}
+
+	private void holdProgress(float fraction) {
+		fraction = Math.max(0, Math.min(1, fraction));
+		if (fraction == (mOpened ? 1 : 0)) {
+			clearProgress();
+			dispatchSlideProgress(fraction);
+			return;
+		}
+
+		if (fraction > 0 && !mOpened && (!isProgressHeld() || mProgress == 0)) {
+			dispatchReveal();
+		}
+		mProgress = fraction;
+		final float translation = ((mAlign & RIGHT_BOTTOM_MASK) > 0 ? -1 : 1)
+				* (fraction - (mOpened ? 1 : 0)) * getSidebarSizeWithOutOffset();
+		setPaneTranslation(translation);
+		dispatchSlideProgress(fraction);
+		invalidate();
+	}
+
+	private void clearProgress() {
+		if (isProgressHeld()) {
+			mProgress = NO_PROGRESS;
+			setPaneTranslation(0);
+			invalidate();
+		}
+	}
+
+	private void setPaneTranslation(float translation) {
+		final boolean v = (mAlign & VERTICAL_MASK) > 0;
+		if (getSidebarMode() == SLIDE) {
+			if (v) {
+				mSidebar.view.setTranslationY(translation);
+			} else {
+				mSidebar.view.setTranslationX(translation);
+			}
+		}
+		if (getContentMode() == SLIDE) {
+			if (v) {
+				mContent.view.setTranslationY(translation);
+			} else {
+				mContent.view.setTranslationX(translation);
+			}
+		}
+		if (mWindowOverlay != null) {
+			mWindowOverlay.invalidate();
+		}
+	}
+
+	public float getSidebarProgress() {
+		if (mRailMode) {
+			return mRailFraction;
+		}
+		if (mDocked) {
+			return 1;
+		}
+		if (mSliding) {
+			return toOpenFraction(mDelta);
+		}
+		return isProgressHeld() ? mProgress : (mOpened ? 1 : 0);
+	}
+
+	/*
+	 * move the sidebar to an open fraction, e.g. a peek or following a scroll
+	 * offset. Without animation only the pane translations change, so it can
+	 * be called every frame; a held fraction stays until the next drag, open,
+	 * close or progress. An animated move uses the duration and interpolator
+	 * of open/close and settles into the opened/closed state at 1 and 0
+	 */
+	public void setSidebarProgress(float fraction, boolean animate) {
+		if (mRailMode || mDocked || mSliding) {
+			return;
+		}
+		if (mProgressAnimator != null) {
+			mProgressAnimator.cancel();
+		}
+		if (mToggling) {
+			return;
+		}
+
+		fraction = Math.max(0, Math.min(1, fraction));
+		final float from = getSidebarProgress();
+		if (!animate || from == fraction) {
+			holdProgress(fraction);
+			return;
+		}
+
+		final float target = fraction;
+		mToggling = true;
+		mGestureLayoutRequests = 0;
+		mProgressAnimator = new SlideAnimation(mFrameClock, from, target,
+				(long) (mDuration * Math.abs(target - from)), mInterpolator,
+				new SlideAnimation.Target() {
+
+			@Override
+			public void onPosition(float value) {
+				holdProgress(value);
+			}
+
+			@Override
+			public void onEnd(boolean cancelled) {
+				mProgressAnimator = null;
+				mToggling = false;
+				if (cancelled) {
+					return;
+				}
+
+				if (target == 1 || target == 0) {
+					/* a full open or close lands in the laid out state */
+					mProgress = NO_PROGRESS;
+					setPaneTranslation(0);
+					(target == 1 ? mOpenListener : mCloseListener).onAnimationEnd(null);
+				} else {
+					onSettled();
+				}
+			}
+		});
+		mProgressAnimator.start();
+	}
+
+	private void cancelProgressAnimation() {
+		if (mProgressAnimator != null) {
+			mProgressAnimator.cancel();
+		}
+	}
+
+	/* open, close, toggle and progress requests from any thread */
+	public void requestOpen() {
+		postCommand(COMMAND_OPEN, 0);
+	}
+
+	public void requestClose() {
+		postCommand(COMMAND_CLOSE, 0);
+	}
+
+	public void requestToggle() {
+		postCommand(COMMAND_TOGGLE, 0);
+	}
+
+	public void requestProgress(float fraction) {
+		postCommand(COMMAND_PROGRESS, fraction);
+	}
+
+	/*
+	 * pending requests collapse into the final target, applied on the next
+	 * animation frame or, while the sidebar moves, once it settles
+	 */
+	private void postCommand(int command, float progress) {
+		synchronized (mCommandLock) {
+			if (command != COMMAND_TOGGLE) {
+				mCommand = command;
+				mCommandProgress = progress;
+			} else {
+				switch (mCommand) {
+				case COMMAND_NONE:
+					mCommand = COMMAND_TOGGLE;
+					break;
+				case COMMAND_TOGGLE:
+					mCommand = COMMAND_NONE;
+					break;
+				case COMMAND_OPEN:
+					mCommand = COMMAND_CLOSE;
+					break;
+				case COMMAND_CLOSE:
+					mCommand = COMMAND_OPEN;
+					break;
+				case COMMAND_PROGRESS:
+					mCommand = mCommandProgress < 0.5f ? COMMAND_OPEN : COMMAND_CLOSE;
+					break;
+				}
+			}
+
+			if (mCommandPosted) {
+				return;
+			}
+			mCommandPosted = true;
+		}
+
+		/* not through post(), detached views queue that on the calling thread */
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			mCommandScheduleRunnable.run();
+		} else {
+			mHandler.post(mCommandScheduleRunnable);
+		}
+	}
+
+	/*
+	 * a deferred command is no longer posted on the clock, only queued for
+	 * the settle; once applied the target is cleared, so a late callback,
+	 * e.g. one moved by a clock swap, finds nothing to do
+	 */
+	private void applyCommand() {
+		if (!isSettled()) {
+			synchronized (mCommandLock) {
+				mCommandPosted = false;
+			}
+			if (!mSettleQueue.contains(mCommandRunnable)) {
+				mSettleQueue.add(mCommandRunnable);
+			}
+			return;
+		}
+
+		final int command;
+		final float progress;
+		synchronized (mCommandLock) {
+			if (mCommand == COMMAND_NONE) {
+				mCommandPosted = false;
+				return;
+			}
+			command = mCommand;
+			progress = mCommandProgress;
+			mCommand = COMMAND_NONE;
+			mCommandPosted = false;
+		}
+
+		switch (command) {
+		case COMMAND_OPEN:
+			openSidebar();
+			break;
+		case COMMAND_CLOSE:
+			closeSidebar();
+			break;
+		case COMMAND_TOGGLE:
+			toggleSidebar();
+			break;
+		case COMMAND_PROGRESS:
+			applySidebarProgress(progress);
+			break;
+		}
+	}
+
+	public void toggleSidebar() {
+		if (mDocked) {
+			return;
+		}
+		if (mRailMode) {
+			animateRail(mRailFraction < 1 ? 1 : 0);
+			return;
+		}
+		toggleSidebar(-1, 0, true);
+	}
+
+	public void openSidebar() {
+		if (mDocked) {
+			return;
+		}
+		if (mRailMode) {
+			animateRail(1);
+		} else if ((!mOpened || isProgressHeld()) && !mToggling) {
+			if (!mOpened && !isProgressHeld()) {
+				dispatchReveal();
+			}
+			animateSidebar(getCurrentDelta(), true);
+		}
+	}
+
+	public void closeSidebar() {
+		if (mDocked) {
+			return;
+		}
+		if (mRailMode) {
+			animateRail(0);
+		} else if ((mOpened || isProgressHeld()) && !mToggling) {
+			animateSidebar(getCurrentDelta(), false);
+		}
+	}
+
+	public boolean isDocked() {
+		return mDocked;
+	}
+
+	public int getDockedMinWidth() {
+		return mDockedMinSize;
+	}
+
+	/*
+	 * from this size along the align axis (width for left/right) the sidebar is
+	 * docked beside the content; 0 never docks
+	 */
+	public void setDockedMinWidth(int size) {
+		if (mDockedMinSize != size) {
+			mDockedMinSize = size;
+			scheduleDockedUpdate();
+		}
+	}
+
+	public void setDockedSizeFraction(float size) {
+		mDockedSizeResolver = new SizeResolver(size, TypedValue.TYPE_FRACTION);
+		if (mDocked) {
+			requestLayout();
+		}
+	}
+
+	public void setDockedSizeDimention(int size) {
+		mDockedSizeResolver = new SizeResolver(size, TypedValue.TYPE_DIMENSION);
+		if (mDocked) {
+			requestLayout();
+		}
+	}
+
+	private boolean shouldDock() {
+		final int size = (mAlign & VERTICAL_MASK) > 0 ? getHeight() : getWidth();
+		return mDockedMinSize > 0 && size > 0 && size >= mDockedMinSize;
+	}
+
+	/*
+	 * switched on the final size in a posted step: the children were already
+	 * measured for the old mode and the switch fires state listeners and
+	 * settle actions, neither belongs inside layout
+	 */
+	private void scheduleDockedUpdate() {
+		mHandler.removeCallbacks(mDockedUpdate);
+		if (shouldDock() != mDocked) {
+			mHandler.post(mDockedUpdate);
+		}
+	}
+
+	private void updateDocked() {
+		final boolean docked = shouldDock();
+		if (docked == mDocked) {
+			return;
+		}
+
+		if (mSlideAnimator != null) {
+			mSlideAnimator.end();
+		}
+		if (mRailAnimator != null) {
+			mRailAnimator.end();
+		}
+		if (mProgressAnimator != null) {
+			mProgressAnimator.end();
+		}
+		/* the ended animations left mOpened on their target */
+		final boolean opened = mOpened;
+		mDocked = docked;
+		mSliding = false;
+		endGestureTrace();
+		mDelta = 0;
+		mProgress = NO_PROGRESS;
+		if (mVelocityTracker != null) {
+			mVelocityTracker.recycle();
+			mVelocityTracker = null;
+		}
+
+		/* same views, only their render state is dropped */
+		mContent.recycleDrawingCache();
+		mSidebar.view.setClipBounds(null);
+		mSidebar.view.setTranslationX(0);
+		mSidebar.view.setTranslationY(0);
+		mContent.view.setTranslationX(0);
+		mContent.view.setTranslationY(0);
+		if (mPaneTransformer != null) {
+			PaneTransformers.reset(mSidebar.view);
+			PaneTransformers.reset(mContent.view);
+		}
+
+		/* docking closes, undocking brings back the state it had before */
+		if (docked) {
+			mUndockedOpened = opened;
+			if (opened) {
+				mCloseListener.onAnimationEnd(null);
+			} else {
+				onSettled();
+			}
+		} else {
+			final boolean reopen = mUndockedOpened;
+			mUndockedOpened = false;
+			if (reopen) {
+				mOpenListener.onAnimationEnd(null);
+			} else {
+				onSettled();
+			}
+		}
+		requestLayout();
+	}
+
+	public boolean isRailMode() {
+		return mRailMode;
+	}
+
+	/*
+	 * collapsed icon rail: the sidebar stays laid out at full size and
+	 * expanding only animates its clip bounds and the content translation
+	 */
+	public void setRailMode(boolean railMode) {
+		if (mRailMode == railMode) {
+			return;
+		}
+		if (mRailAnimator != null) {
+			mRailAnimator.cancel();
+		}
+		mRailMode = railMode;
+		mRailFraction = 0;
+		mOpened = false;
+		mContent.recycleDrawingCache();
+		if (!railMode) {
+			mSidebar.view.setClipBounds(null);
+			mContent.view.setTranslationX(0);
+			mContent.view.setTranslationY(0);
+		}
+		requestLayout();
+	}
+
+	public int getRailSize() {
+		return mRailSize;
+	}
+
+	public void setRailSize(int railSize) {
+		mRailSize = railSize;
+		if (mRailMode) {
+			requestLayout();
+		}
+	}
+
+	public boolean isRailExpanded() {
+		return mRailMode && mRailFraction == 1;
+	}
+
+	private void animateRail(final float target) {
+		if (mRailAnimator != null) {
+			mRailAnimator.cancel();
+		}
+		if (mRailFraction == target) {
+			return;
+		}
+		if (target > 0) {
+			dispatchReveal();
+		}
+
+		mToggling = true;
+		mGestureLayoutRequests = 0;
+		mRailAnimator = new SlideAnimation(mFrameClock, mRailFraction, target,
+				(long) (mDuration * Math.abs(target - mRailFraction)), mInterpolator,
+				new SlideAnimation.Target() {
+
+			@Override
+			public void onPosition(float value) {
+				applyRail(value);
+			}
+
+			@Override
+			public void onEnd(boolean cancelled) {
+				mRailAnimator = null;
+				mToggling = false;
+				if (cancelled) {
+					return;
+				}
+				dispatchSidebarState(target > 0);
+				onSettled();
+			}
+		});
+		mRailAnimator.start();
+	}
+
+	private void applyRail(float fraction) {
+		mRailFraction = fraction;
+
+		final int size = getSidebarSize();
+		final int extra = Math.max(0, size - mRailSize);
+		final int visible = Math.min(size, mRailSize + (int) (extra * fraction));
+		final int w = mSidebarWidth;
+		final int h = mSidebarHeight;
+		switch (mAlign) {
+		case BOTTOM:
+			mRailClip.set(0, h - visible, w, h);
+			break;
+		case TOP:
+			mRailClip.set(0, 0, w, visible);
+			break;
+		case RIGHT:
+			mRailClip.set(w - visible, 0, w, h);
+			break;
+		case LEFT:
+		default:
+			mRailClip.set(0, 0, visible, h);
+			break;
+		}
+		mSidebar.view.setClipBounds(mRailClip);
+
+		if (getContentMode() == SLIDE) {
+			final float translation = ((mAlign & RIGHT_BOTTOM_MASK) > 0 ? -1 : 1)
+					* extra * fraction;
+			if ((mAlign & VERTICAL_MASK) > 0) {
+				mContent.view.setTranslationY(translation);
+			} else {
+				mContent.view.setTranslationX(translation);
+			}
+		}
+		dispatchSlideProgress(fraction);
+		if (mWindowOverlay != null) {
+			mWindowOverlay.invalidate();
+		}
+	}
+
+	@Override
+	public void addView(View child, int index, LayoutParams params) {
+		final int id = child.getId();
+		if (id != View.NO_ID) {
+			if ((mSidebar != null) && (mSidebar.id == id)) {
+				mSidebar.view.removeAllViews(); 
+				mSidebar.view.addView(child);
+				return;
+			}
+
+			if ((mContent != null) && (mContent.id == id)) {
+				mContent.view.removeAllViews(); 
+				mContent.view.addView(child);
+				return;
+			}
+		}
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeView(View view) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeViewAt(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeViewInLayout(View view) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeViews(int start, int count) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeViewsInLayout(int start, int count) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeAllViews() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeAllViewsInLayout() {
+		throw new UnsupportedOperationException();
+	}
+
+	public int getAlign() {
+		return mAlign;
+	}
+
+	public void setAlign(int align) {
+		if (this.mAlign != align) {
+			switch (align) {
 			case LEFT:
 			case TOP:
 			case RIGHT:
@@ -916,12 +2244,105 @@ public class SidebarLayout extends ViewGroup {
 		}
 	}
 
+	public PaneTransformer getPaneTransformer() {
+		return mPaneTransformer;
+	}
+
+	public void setPaneTransformer(PaneTransformer transformer) {
+		if (mPaneTransformer == transformer) {
+			return;
+		}
+		if (mPaneTransformer != null) {
+			PaneTransformers.reset(mSidebar.view);
+			PaneTransformers.reset(mContent.view);
+		}
+		mPaneTransformer = transformer;
+		dispatchSlideProgress(mOpened ? 1 : 0);
+	}
+
+	public void addOnSlideListener(OnSlideListener l) {
+		if (l != null && !mSlideListeners.contains(l)) {
+			mSlideListeners.add(l);
+		}
+	}
+
+	public void removeOnSlideListener(OnSlideListener l) {
+		mSlideListeners.remove(l);
+	}
+
+	/*
+	 * transformers may only touch render properties; in debug mode a layout
+	 * request made from transformPanes() is logged, during a gesture it is
+	 * counted in the diagnostics as well
+	 */
+	private void dispatchSlideProgress(float fraction) {
+		if (mDocked) {
+			return;
+		}
+		final boolean traced = SidebarTrace.begin(SidebarTrace.DISPATCH);
+		try {
+			for (int i = mSlideListeners.size() - 1; i >= 0; i--) {
+				mSlideListeners.get(i).onSidebarSlide(fraction);
+			}
+			if (mPaneTransformer != null) {
+				transformPanes(fraction);
+			}
+		} finally {
+			SidebarTrace.end(traced);
+		}
+	}
+
+	private void transformPanes(float fraction) {
+		final boolean sidebarLayoutRequested = mSidebar.view.isLayoutRequested();
+		final boolean contentLayoutRequested = mContent.view.isLayoutRequested();
+		mInTransform = true;
+		try {
+			mPaneTransformer.transformPanes(mSidebar.view, mContent.view, fraction, mAlign);
+		} finally {
+			mInTransform = false;
+		}
+
+		if (mDebugMode && ((!sidebarLayoutRequested && mSidebar.view.isLayoutRequested())
+				|| (!contentLayoutRequested && mContent.view.isLayoutRequested()))) {
+			logTransformLayoutRequest();
+		}
+	}
+
+	@Override
+	public void requestLayout() {
+		checkTransformLayoutRequest();
+		/* a request from inside a pane reaches here with the pane already flagged */
+		if (mContent != null && mSidebar != null
+				&& (mContent.view.isLayoutRequested() || mSidebar.view.isLayoutRequested())) {
+			countGestureLayoutRequest();
+		}
+		super.requestLayout();
+	}
+
+	private void checkTransformLayoutRequest() {
+		if (mInTransform && mDebugMode) {
+			logTransformLayoutRequest();
+		}
+	}
+
+	private void logTransformLayoutRequest() {
+		Log.w(TAG, mPaneTransformer.getClass().getName() + " requested layout");
+	}
+
+	private void countGestureLayoutRequest() {
+		if (mSliding || mToggling) {
+			mGestureLayoutRequests++;
+		}
+	}
+
 	public void setDuration(int duration) {
 		this.mDuration = duration;
 	}
 
+	/* sampled into a LookupTableInterpolator unless it is linear */
 	public void setSlideAnimationInterpolator(Interpolator interpolator) {
-		this.mInterpolator = interpolator;
+		this.mInterpolator = interpolator != null ? LookupTableInterpolator
+				.wrap(interpolator) : new LinearInterpolator();
 	}
 
 	public boolean isDebugMode() {
@@ -1001,7 +2422,7 @@ public class SidebarLayout extends ViewGroup {
 				break;
 			}
 			
-			if (mSidebar != null && mSidebar.view != null && mSidebar.view.getParent() != null) {
+			if (mSidebar != null && mSidebar.view != null && mSidebar.view.getParent() == this) {
 				detachViewFromParent(mSidebar.view);
 				attachViewToParent(mSidebar.view, 
 						(mSidebarHierarchy == UNDER_CONTENT) ? 0 : UNKNOWN, 
@@ -1030,8 +2451,440 @@ public class SidebarLayout extends ViewGroup {
 		return mContent.view.getChildAt(0);
 	}
 	
+	public void prepareSidebar() {
+		prepareSidebar(false);
+	}
+
+	/*
+	 * get the sidebar ready for its first open during idle time: its display
+	 * list is recorded once the regular traversal has measured and laid it
+	 * out; keepLayer leaves the hardware layer built for the first frame in
+	 * place. Main thread only, the idle handler goes on the caller's queue
+	 */
+	public void prepareSidebar(boolean keepLayer) {
+		if (Looper.myLooper() != Looper.getMainLooper()) {
+			throw new IllegalStateException("prepareSidebar must be called on the main thread");
+		}
+		if (mWarmup != null) {
+			mWarmup.cancel();
+		}
+		mWarmup = new SidebarWarmup(keepLayer);
+		mWarmup.start();
+	}
+
+	class SidebarWarmup implements MessageQueue.IdleHandler {
+		private final boolean keepLayer;
+
+		SidebarWarmup(boolean keepLayer) {
+			this.keepLayer = keepLayer;
+		}
+
+		void start() {
+			Looper.myQueue().addIdleHandler(this);
+		}
+
+		void cancel() {
+			Looper.myQueue().removeIdleHandler(this);
+		}
+
+		@Override
+		public boolean queueIdle() {
+			/* nothing to size against before the first layout pass */
+			if (getWidth() == 0 || getHeight() == 0) {
+				return true;
+			}
+
+			/*
+			 * the sidebar is measured and laid out, rows bound, with the rest
+			 * of the layout; doing it here again would only repeat that work
+			 */
+			final View sidebar = mSidebar.view;
+			if (sidebar.isLayoutRequested()) {
+				return true;
+			}
+
+			if (sidebar.isAttachedToWindow() && sidebar.isHardwareAccelerated()
+					&& sidebar.getWidth() > 0) {
+				final int layerType = sidebar.getLayerType();
+				if (layerType == View.LAYER_TYPE_NONE) {
+					sidebar.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+				}
+				sidebar.buildLayer();
+				if (!keepLayer) {
+					sidebar.setLayerType(layerType, null);
+				}
+			}
+
+			if (mWarmup == this) {
+				mWarmup = null;
+			}
+			return false;
+		}
+	}
+
 	public void setContent(View view){
+		cancelContentSwap();
 		attachChildView(mContent,view);
+		/* the snapshot drawn while opened shows the old content */
+		mContent.recycleDrawingCache();
+		invalidate();
+	}
+
+	/*
+	 * replace the content while the sidebar is open: the new view is measured,
+	 * laid out and recorded off-screen one step per frame, the recording is
+	 * rasterized on a worker thread, then the sidebar closes while the two
+	 * snapshots crossfade. While the sidebar moves the swap waits for it to
+	 * settle, the last one requested wins
+	 */
+	public void swapContent(View view) {
+		if (view != null && !isSettled()) {
+			if (mDeferredSwap == null) {
+				runAfterSettle(mDeferredSwapRunnable);
+			}
+			mDeferredSwap = view;
+			return;
+		}
+		if (view == null || !mOpened || mContentRect.isEmpty()) {
+			setContent(view);
+			return;
+		}
+
+		cancelContentSwap();
+		mContentSwap = new ContentSwap(view, mContentRect.width(), mContentRect.height());
+		mContentSwap.start();
+	}
+
+	private void cancelContentSwap() {
+		mDeferredSwap = null;
+		mSizeChangeSwap = null;
+		if (mContentSwap != null) {
+			mContentSwap.cancel();
+			mContentSwap = null;
+		}
+	}
+
+	private void completeContentSwap() {
+		final ContentSwap swap = mContentSwap;
+		if (swap == null || !swap.isCaptured()) {
+			return;
+		}
+		mContentSwap = null;
+		/* the snapshot bitmap is the next swap's target */
+		recycleSwapBitmap();
+		mSwapBitmap = swap.snapshot.getBitmap();
+		swap.snapshot = null;
+		setContent(swap.view);
+	}
+
+	private Bitmap obtainSwapBitmap(int width, int height) {
+		final Bitmap bitmap = mSwapBitmap;
+		mSwapBitmap = null;
+		if (bitmap != null && !bitmap.isRecycled() && bitmap.getWidth() == width
+				&& bitmap.getHeight() == height) {
+			return bitmap;
+		}
+		if (bitmap != null) {
+			bitmap.recycle();
+		}
+		return null;
+	}
+
+	private void recycleSwapBitmap() {
+		if (mSwapBitmap != null) {
+			mSwapBitmap.recycle();
+			mSwapBitmap = null;
+		}
+	}
+
+	class ContentSwap implements FrameClock.Callback {
+		private static final int MEASURE = 0;
+		private static final int LAYOUT = 1;
+		private static final int RECORD = 2;
+		private static final int RASTERIZE = 3;
+		private static final int CAPTURED = 4;
+
+		final View view;
+		final int width;
+		final int height;
+		BitmapDrawable snapshot;
+		private int step = MEASURE;
+		private boolean cancelled;
+
+		ContentSwap(View view, int width, int height) {
+			this.view = view;
+			this.width = width;
+			this.height = height;
+		}
+
+		boolean isCaptured() {
+			return step == CAPTURED;
+		}
+
+		void start() {
+			mFrameClock.postFrameCallback(this);
+		}
+
+		void cancel() {
+			cancelled = true;
+			mFrameClock.removeFrameCallback(this);
+			recycle();
+		}
+
+		void moveClock(FrameClock from, FrameClock to) {
+			if (!cancelled && step < RASTERIZE) {
+				from.removeFrameCallback(this);
+				to.postFrameCallback(this);
+			}
+		}
+
+		void recycle() {
+			if (snapshot != null && snapshot.getBitmap() != null) {
+				snapshot.getBitmap().recycle();
+			}
+			snapshot = null;
+		}
+
+		/*
+		 * the recording may hold what software playback can't draw, hardware
+		 * bitmaps or a bitmap the app recycled meanwhile; such a swap falls
+		 * back to a plain setContent()
+		 */
+		private void rasterize(final Picture picture) {
+			final Bitmap reused = obtainSwapBitmap(width, height);
+			AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					Bitmap bitmap = reused;
+					try {
+						if (bitmap != null) {
+							bitmap.eraseColor(Color.TRANSPARENT);
+						} else {
+							bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+						}
+						picture.draw(new Canvas(bitmap));
+					} catch (RuntimeException e) {
+						Log.w(TAG, "can't capture content", e);
+						bitmap = recycle(bitmap);
+					} catch (OutOfMemoryError e) {
+						Log.w(TAG, "can't capture content", e);
+						bitmap = recycle(bitmap);
+					}
+
+					final Bitmap result = bitmap;
+					mHandler.post(new Runnable() {
+
+						@Override
+						public void run() {
+							onCaptured(result);
+						}
+					});
+				}
+			});
+		}
+
+		private Bitmap recycle(Bitmap bitmap) {
+			if (bitmap != null) {
+				bitmap.recycle();
+			}
+			return null;
+		}
+
+		private void onCaptured(Bitmap bitmap) {
+			if (cancelled) {
+				recycle(bitmap);
+				return;
+			}
+			if (bitmap == null) {
+				runAfterSettle(new Runnable() {
+
+					@Override
+					public void run() {
+						if (mContentSwap == ContentSwap.this) {
+							mContentSwap = null;
+							setContent(view);
+						}
+					}
+				});
+				return;
+			}
+			snapshot = new BitmapDrawable(getResources(), bitmap);
+			step = CAPTURED;
+			runAfterSettle(new Runnable() {
+
+				@Override
+				public void run() {
+					if (mContentSwap != ContentSwap.this) {
+						return;
+					}
+					if (mOpened) {
+						/* the open snapshot is the crossfade's first frame */
+						mContent.ensureDrawingCache();
+						closeSidebar();
+					} else {
+						completeContentSwap();
+					}
+				}
+			});
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			if (cancelled) {
+				return;
+			}
+
+			switch (step) {
+			case MEASURE:
+				view.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+						MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+				break;
+			case LAYOUT:
+				view.layout(0, 0, width, height);
+				break;
+			case RECORD:
+				/* only the drawing commands on the main thread, pixels come later */
+				final Picture picture = new Picture();
+				view.draw(picture.beginRecording(width, height));
+				picture.endRecording();
+				step = RASTERIZE;
+				rasterize(picture);
+				return;
+			}
+			step++;
+			mFrameClock.postFrameCallback(this);
+		}
+	}
+	
+	/*
+	 * decor level host of the sidebar in the window overlay attach mode. It is
+	 * measured once with the spec SidebarLayout used, stretched across the
+	 * window and, under a sliding content, clipped to the strip the content
+	 * has left
+	 */
+	class WindowOverlay extends ViewGroup {
+		private final int[] mOverlayLocation = new int[2];
+		private final int[] mLayoutLocation = new int[2];
+		private final Rect mVacated = new Rect();
+		private int mOffsetX;
+		private int mOffsetY;
+		private int mLayoutWidthSpec;
+		private int mLayoutHeightSpec;
+
+		WindowOverlay(Context context) {
+			super(context);
+		}
+
+		void measureSidebar(int w, int h) {
+			mLayoutWidthSpec = w;
+			mLayoutHeightSpec = h;
+			/* across the window once it is known, the own pass then hits the cache */
+			if (getMeasuredWidth() > 0 && getMeasuredHeight() > 0) {
+				if ((mAlign & VERTICAL_MASK) > 0) {
+					w = MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.EXACTLY);
+				} else {
+					h = MeasureSpec.makeMeasureSpec(getMeasuredHeight(), MeasureSpec.EXACTLY);
+				}
+			}
+			SidebarLayout.this.measureChild(mSidebar.view, w, h);
+		}
+
+		void layoutSidebar() {
+			getLocationInWindow(mOverlayLocation);
+			SidebarLayout.this.getLocationInWindow(mLayoutLocation);
+			mOffsetX = mLayoutLocation[0] - mOverlayLocation[0];
+			mOffsetY = mLayoutLocation[1] - mOverlayLocation[1];
+
+			final boolean v = (mAlign & VERTICAL_MASK) > 0;
+			final int l = v ? 0 : mSidebarRect.left + mOffsetX;
+			final int t = v ? mSidebarRect.top + mOffsetY : 0;
+			final int r = v ? getWidth() : mSidebarRect.right + mOffsetX;
+			final int b = v ? mSidebarRect.bottom + mOffsetY : getHeight();
+			if (mSidebar.view.getMeasuredWidth() != r - l
+					|| mSidebar.view.getMeasuredHeight() != b - t) {
+				mSidebar.view.measure(MeasureSpec.makeMeasureSpec(r - l, MeasureSpec.EXACTLY),
+						MeasureSpec.makeMeasureSpec(b - t, MeasureSpec.EXACTLY));
+			}
+			mSidebar.view.layout(l, t, r, b);
+			invalidate();
+		}
+
+		private boolean isClipped() {
+			return mSidebarHierarchy == UNDER_CONTENT && getContentMode() == SLIDE;
+		}
+
+		private Rect getVacatedRect() {
+			final View content = mContent.view;
+			mVacated.set(0, 0, getWidth(), getHeight());
+			switch (mAlign) {
+			case BOTTOM:
+				mVacated.top = mOffsetY + content.getBottom() + (int) content.getTranslationY();
+				break;
+			case TOP:
+				mVacated.bottom = mOffsetY + content.getTop() + (int) content.getTranslationY();
+				break;
+			case RIGHT:
+				mVacated.left = mOffsetX + content.getRight() + (int) content.getTranslationX();
+				break;
+			case LEFT:
+			default:
+				mVacated.right = mOffsetX + content.getLeft() + (int) content.getTranslationX();
+				break;
+			}
+			return mVacated;
+		}
+
+		@Override
+		protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+			setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec),
+					MeasureSpec.getSize(heightMeasureSpec));
+			if (mLayoutWidthSpec != 0 || mLayoutHeightSpec != 0) {
+				measureSidebar(mLayoutWidthSpec, mLayoutHeightSpec);
+			}
+		}
+
+		@Override
+		protected void onLayout(boolean changed, int l, int t, int r, int b) {
+			layoutSidebar();
+		}
+
+		@Override
+		public void requestLayout() {
+			/* sidebar requests go up to the decor and never reach SidebarLayout */
+			checkTransformLayoutRequest();
+			if (mSidebar != null && mSidebar.view.isLayoutRequested()) {
+				countGestureLayoutRequest();
+			}
+			super.requestLayout();
+		}
+
+		@Override
+		protected void dispatchDraw(Canvas canvas) {
+			if (isClipped()) {
+				final int saveCount = canvas.save();
+				canvas.clipRect(getVacatedRect());
+				super.dispatchDraw(canvas);
+				canvas.restoreToCount(saveCount);
+			} else {
+				super.dispatchDraw(canvas);
+			}
+		}
+
+		@Override
+		public boolean dispatchTouchEvent(MotionEvent ev) {
+			if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+				final int x = (int) ev.getX();
+				final int y = (int) ev.getY();
+				/* drags and the covered part belong to the layout underneath */
+				if ((mAllowDrag && !mRailMode && !mDocked
+						&& mDragRect.contains(x - mOffsetX, y - mOffsetY))
+						|| (isClipped() && !getVacatedRect().contains(x, y))) {
+					return false;
+				}
+			}
+			return super.dispatchTouchEvent(ev);
+		}
 	}
 	
 	public View getSidebar(){
@@ -1057,12 +2910,12 @@ public class SidebarLayout extends ViewGroup {
 			mToggling = false;
 			mOpened = true;
 			mDelta = 0;
+			dispatchSlideProgress(1);
 
 			requestLayout();
 			invalidate();
-			if (mSidebarListener != null) {
-				mSidebarListener.onSidebarOpened();
-			}
+			dispatchSidebarState(true);
+			onSettled();
 		}
 
 		@Override
@@ -1140,14 +2993,15 @@ public class SidebarLayout extends ViewGroup {
 			mToggling = false;
 			mOpened = false;
 			mDelta = 0;
+			dispatchSlideProgress(0);
 
 			mContent.recycleDrawingCache();
+			completeContentSwap();
 			
 			requestLayout();
 			invalidate();
-			if (mSidebarListener != null) {
-				mSidebarListener.onSidebarClosed();
-			}
+			dispatchSidebarState(false);
+			onSettled();
 		}
 
 		@Override
@@ -1161,4 +3015,22 @@ public class SidebarLayout extends ViewGroup {
 
 		public void onSidebarClosed();
 	}
+
+	/*
+	 * called every frame of a drag or animation with the open fraction, may set
+	 * only render properties (scale, alpha, rotation, pivot, translationZ)
+	 */
+	public interface PaneTransformer {
+		public void transformPanes(View sidebar, View content, float openFraction, int align);
+	}
+
+	/* open fraction of the sidebar on every drag, animation and progress frame */
+	public interface OnSlideListener {
+		public void onSidebarSlide(float openFraction);
+	}
+
+	/* called when a closed sidebar starts to come on screen (drag or open) */
+	public interface OnRevealListener {
+		public void onSidebarReveal();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,367 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * Incremental prefix filter over sidebar item titles. The token index is
+ * built and queried on a worker executor; a newer query cancels the one in
+ * flight and only the difference to the previous result is published on
+ * the main thread.
+ */
+public class SidebarMenuFilter {
+	private static final int CANCEL_CHECK_STEP = 1024;
+	private static final int[] EMPTY = new int[0];
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final ExecutorService mExecutor;
+	private final boolean mOwnExecutor;
+	private final AtomicInteger mGeneration = new AtomicInteger();
+
+	private FilterListener mListener;
+	private Future<?> mPending;
+
+	/* worker thread state, replaced as a whole */
+	private volatile TokenIndex mIndex = new TokenIndex(new String[0]);
+	private String mLastTerm;
+	private int mLastLo;
+	private int mLastHi;
+
+	/* main thread state */
+	private int[] mResults = EMPTY;
+	private CharSequence mQuery = "";
+	private boolean mItemsChanged;
+
+	public SidebarMenuFilter() {
+		this(Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread thread = new Thread(new Runnable() {
+
+					@Override
+					public void run() {
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+						r.run();
+					}
+				}, "SidebarMenuFilter");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}), true);
+	}
+
+	/* the executor must run tasks serially */
+	public SidebarMenuFilter(ExecutorService executor) {
+		this(executor, false);
+	}
+
+	private SidebarMenuFilter(ExecutorService executor, boolean ownExecutor) {
+		if (executor == null) {
+			throw new NullPointerException("no executor");
+		}
+		mExecutor = executor;
+		mOwnExecutor = ownExecutor;
+	}
+
+	public void setListener(FilterListener l) {
+		mListener = l;
+	}
+
+	/* main thread, titles are snapshotted before the index is built */
+	public void setItems(List<? extends CharSequence> titles) {
+		final String[] snapshot = new String[titles.size()];
+		for (int i = 0; i < snapshot.length; i++) {
+			final CharSequence title = titles.get(i);
+			snapshot[i] = title != null ? title.toString() : "";
+		}
+
+		/* old results must not point past the new items until the query lands */
+		mResults = clamp(mResults, snapshot.length);
+		mItemsChanged = true;
+
+		/* index builds are never cancelled, the executor keeps them ordered */
+		mExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				mIndex = new TokenIndex(snapshot);
+				mLastTerm = null;
+			}
+		});
+		submit(mQuery);
+	}
+
+	public void filter(CharSequence query) {
+		mQuery = query != null ? query : "";
+		submit(mQuery);
+	}
+
+	public CharSequence getQuery() {
+		return mQuery;
+	}
+
+	public int getCount() {
+		return mResults.length;
+	}
+
+	/* item index in the list given to setItems() */
+	public int getItemIndex(int position) {
+		return mResults[position];
+	}
+
+	public void release() {
+		mGeneration.incrementAndGet();
+		if (mPending != null) {
+			mPending.cancel(true);
+			mPending = null;
+		}
+		mHandler.removeCallbacksAndMessages(null);
+		if (mOwnExecutor) {
+			mExecutor.shutdownNow();
+		}
+	}
+
+	private void submit(CharSequence query) {
+		final int generation = mGeneration.incrementAndGet();
+		final String[] terms = tokenize(query.toString());
+
+		if (mPending != null) {
+			mPending.cancel(true);
+		}
+
+		mPending = mExecutor.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				if (generation != mGeneration.get()) {
+					return;
+				}
+
+				final int[] results = query(mIndex, terms, generation);
+				if (results == null) {
+					return;
+				}
+				mHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						publish(generation, results);
+					}
+				});
+			}
+		});
+	}
+
+	private void publish(int generation, int[] results) {
+		if (generation != mGeneration.get()) {
+			return;
+		}
+		mPending = null;
+
+		final int[] removed = diff(mResults, results);
+		final int[] inserted = diff(results, mResults);
+		mResults = results;
+
+		/* new items may match the same indices with other content */
+		final boolean changed = mItemsChanged || removed.length > 0 || inserted.length > 0;
+		mItemsChanged = false;
+		if (changed && mListener != null) {
+			mListener.onFilterResults(results, removed, inserted);
+		}
+	}
+
+	/* sorted results below count */
+	private static int[] clamp(int[] results, int count) {
+		int n = results.length;
+		while (n > 0 && results[n - 1] >= count) {
+			n--;
+		}
+		return n == results.length ? results : Arrays.copyOf(results, n);
+	}
+
+	private int[] query(TokenIndex index, String[] terms, int generation) {
+		if (terms.length == 0) {
+			final int[] all = new int[index.itemCount];
+			for (int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			return all;
+		}
+
+		BitSet matched = null;
+		for (int t = 0; t < terms.length; t++) {
+			final String term = terms[t];
+			int lo = 0;
+			int hi = index.tokens.length;
+
+			/* typing forward only narrows the previous range of the last term */
+			final boolean last = t == terms.length - 1;
+			if (last && mLastTerm != null && term.startsWith(mLastTerm)) {
+				lo = mLastLo;
+				hi = mLastHi;
+			}
+			lo = index.lowerBound(term, lo, hi);
+			hi = index.prefixEnd(term, lo, hi);
+			if (last) {
+				mLastTerm = term;
+				mLastLo = lo;
+				mLastHi = hi;
+			}
+
+			final BitSet items = new BitSet(index.itemCount);
+			for (int i = lo; i < hi; i++) {
+				if ((i - lo) % CANCEL_CHECK_STEP == 0
+						&& generation != mGeneration.get()) {
+					return null;
+				}
+				items.set(index.items[i]);
+			}
+
+			if (matched == null) {
+				matched = items;
+			} else {
+				matched.and(items);
+			}
+		}
+
+		final int[] results = new int[matched.cardinality()];
+		for (int i = matched.nextSetBit(0), n = 0; i >= 0; i = matched.nextSetBit(i + 1)) {
+			results[n++] = i;
+		}
+		return results;
+	}
+
+	/* values of sorted a missing from sorted b */
+	private static int[] diff(int[] a, int[] b) {
+		final int[] result = new int[a.length];
+		int n = 0;
+		int j = 0;
+		for (int i = 0; i < a.length; i++) {
+			while (j < b.length && b[j] < a[i]) {
+				j++;
+			}
+			if (j >= b.length || b[j] != a[i]) {
+				result[n++] = a[i];
+			}
+		}
+		return n == result.length ? result : Arrays.copyOf(result, n);
+	}
+
+	static String[] tokenize(String text) {
+		final List<String> tokens = new ArrayList<String>();
+		final String lower = text.toLowerCase(Locale.getDefault());
+		int start = -1;
+		for (int i = 0; i <= lower.length(); i++) {
+			final boolean letter = i < lower.length()
+					&& Character.isLetterOrDigit(lower.charAt(i));
+			if (letter && start < 0) {
+				start = i;
+			} else if (!letter && start >= 0) {
+				tokens.add(lower.substring(start, i));
+				start = -1;
+			}
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	static class TokenIndex {
+		final String[] tokens;
+		final int[] items;
+		final int itemCount;
+
+		TokenIndex(String[] titles) {
+			final List<Token> all = new ArrayList<Token>();
+			for (int i = 0; i < titles.length; i++) {
+				for (String token : tokenize(titles[i])) {
+					all.add(new Token(token, i));
+				}
+			}
+			Collections.sort(all);
+
+			tokens = new String[all.size()];
+			items = new int[all.size()];
+			for (int i = 0; i < tokens.length; i++) {
+				tokens[i] = all.get(i).token;
+				items[i] = all.get(i).item;
+			}
+			itemCount = titles.length;
+		}
+
+		int lowerBound(String term, int lo, int hi) {
+			while (lo < hi) {
+				final int mid = (lo + hi) >>> 1;
+				if (tokens[mid].compareTo(term) < 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo;
+		}
+
+		int prefixEnd(String term, int lo, int hi) {
+			while (lo < hi) {
+				final int mid = (lo + hi) >>> 1;
+				if (tokens[mid].startsWith(term)) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo;
+		}
+	}
+
+	static class Token implements Comparable<Token> {
+		final String token;
+		final int item;
+
+		Token(String token, int item) {
+			this.token = token;
+			this.item = item;
+		}
+
+		@Override
+		public int compareTo(Token another) {
+			final int result = token.compareTo(another.token);
+			return result != 0 ? result : item - another.item;
+		}
+	}
+
+	public interface FilterListener {
+		/*
+		 * results are ascending item indices; removed/inserted are the diff,
+		 * both empty when only the items given to setItems() changed
+		 */
+		public void onFilterResults(int[] results, int[] removed, int[] inserted);
+	}
+}
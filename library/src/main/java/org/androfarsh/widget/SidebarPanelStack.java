@@ -0,0 +1,487 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * Stack of sliding panels (menu, list, detail...). Every pushed panel slides
+ * over the previous one and leaves a peek strip of it visible; the top panel
+ * can be dragged away to pop it. Only the two topmost panels are attached,
+ * measured and moved; covered panels are detached and the nearest ones keep
+ * a snapshot, up to the retention budget, for the next pop.
+ */
+public class SidebarPanelStack extends ViewGroup {
+	private static final int PEEK = 64;
+	private static final int OFFSET = 50;
+	private static final int RETAINED_SNAPSHOTS = 1;
+
+	private final List<Panel> mPanels = new ArrayList<Panel>();
+
+	private int mPeek;
+	private int mDragOffset;
+	private int mDuration = SidebarLayout.DURATION;
+	private Interpolator mInterpolator = new LinearInterpolator();
+	private int mRetainedSnapshots = RETAINED_SNAPSHOTS;
+	private float mMaximumFlingVelocity = 2 * SidebarLayout.SNAP_VELOCITY;
+	private FrameClock mFrameClock = ChoreographerFrameClock.getInstance();
+
+	private boolean mSliding;
+	private boolean mAnimating;
+	private SlideAnimation mRunning;
+	private int mDownX;
+	private int mDelta;
+	private VelocityTracker mVelocityTracker;
+	private PanelListener mListener;
+
+	static class Panel {
+		final View view;
+		BitmapDrawable snapshot;
+		boolean attached;
+
+		Panel(View view) {
+			this.view = view;
+		}
+
+		@SuppressWarnings("deprecation")
+		void createSnapshot() {
+			recycleSnapshot();
+			view.buildDrawingCache();
+			final Bitmap bitmap = view.getDrawingCache();
+			if (bitmap != null) {
+				snapshot = new BitmapDrawable(Bitmap.createBitmap(bitmap));
+			}
+			view.destroyDrawingCache();
+		}
+
+		void recycleSnapshot() {
+			if (snapshot != null && snapshot.getBitmap() != null) {
+				snapshot.getBitmap().recycle();
+			}
+			snapshot = null;
+		}
+	}
+
+	public SidebarPanelStack(Context context) {
+		this(context, null);
+	}
+
+	public SidebarPanelStack(Context context, AttributeSet attrs) {
+		this(context, attrs, 0);
+	}
+
+	public SidebarPanelStack(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+		mPeek = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, PEEK,
+				getResources().getDisplayMetrics());
+		mDragOffset = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, OFFSET,
+				getResources().getDisplayMetrics());
+	}
+
+	@Override
+	protected void onFinishInflate() {
+		super.onFinishInflate();
+
+		/* children from xml become the initial panels */
+		final View[] children = new View[getChildCount()];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = getChildAt(i);
+		}
+		super.removeAllViewsInLayout();
+		for (View child : children) {
+			mPanels.add(new Panel(child));
+		}
+		updateAttachedPanels();
+	}
+
+	public void setListener(PanelListener l) {
+		mListener = l;
+	}
+
+	public int getPanelCount() {
+		return mPanels.size();
+	}
+
+	public View getTopPanel() {
+		return mPanels.isEmpty() ? null : mPanels.get(mPanels.size() - 1).view;
+	}
+
+	public int getPeekSize() {
+		return mPeek;
+	}
+
+	public void setPeekSize(int peek) {
+		mPeek = peek;
+		requestLayout();
+	}
+
+	public void setDragOffset(int offset) {
+		mDragOffset = offset;
+	}
+
+	public void setDuration(int duration) {
+		mDuration = duration;
+	}
+
+	public FrameClock getFrameClock() {
+		return mFrameClock;
+	}
+
+	/* clock the push and pop animations run on, a running one is ended */
+	public void setFrameClock(FrameClock clock) {
+		if (clock == null) {
+			throw new NullPointerException();
+		}
+		endAnimation();
+		mFrameClock = clock;
+	}
+
+	public void setSlideAnimationInterpolator(Interpolator interpolator) {
+		mInterpolator = interpolator != null ? LookupTableInterpolator
+				.wrap(interpolator) : new LinearInterpolator();
+	}
+
+	public int getRetainedSnapshots() {
+		return mRetainedSnapshots;
+	}
+
+	/* covered panels keeping a snapshot, the rest are only detached */
+	public void setRetainedSnapshots(int count) {
+		mRetainedSnapshots = Math.max(0, count);
+		trimSnapshots();
+	}
+
+	public void pushPanel(final View view) {
+		if (mAnimating) {
+			endAnimation();
+		}
+
+		final Panel previous = mPanels.isEmpty() ? null : mPanels.get(mPanels.size() - 1);
+		mPanels.add(new Panel(view));
+		updateAttachedPanels();
+		requestLayout();
+
+		if (previous == null || getWidth() == 0) {
+			dispatchPushed(view);
+			return;
+		}
+
+		/*
+		 * laid out at the final position, slid in from the previous one which
+		 * gives up its peek strip on the way, unless it is the base panel
+		 */
+		final boolean previousWasBase = mPanels.size() == 2;
+		final float travel = getWidth() - mPeek;
+		animate(travel, 0, new SlideAnimation.Target() {
+
+			@Override
+			public void onPosition(float value) {
+				view.setTranslationX(value);
+				if (!previousWasBase && travel > 0) {
+					previous.view.setTranslationX(mPeek * value / travel);
+				}
+			}
+
+			@Override
+			public void onEnd(boolean cancelled) {
+				finishAnimation();
+				dispatchPushed(mPanels.get(mPanels.size() - 1).view);
+			}
+		});
+	}
+
+	/* like a push, a running animation is ended first */
+	public void popPanel() {
+		if (mAnimating) {
+			endAnimation();
+		}
+		if (mPanels.size() < 2) {
+			return;
+		}
+		animatePop(0);
+	}
+
+	private void animatePop(final float from) {
+		final Panel top = mPanels.get(mPanels.size() - 1);
+		final Panel below = mPanels.get(mPanels.size() - 2);
+		final Panel revealed = mPanels.size() > 2 ? mPanels.get(mPanels.size() - 3) : null;
+
+		/* the panel coming into the peek strip, drawn from its snapshot if kept */
+		if (revealed != null && revealed.snapshot == null) {
+			attachPanel(revealed);
+		}
+
+		final float to = getWidth() - mPeek;
+		animate(from, to, new SlideAnimation.Target() {
+
+			@Override
+			public void onPosition(float value) {
+				top.view.setTranslationX(value);
+				if (revealed != null && to > from) {
+					below.view.setTranslationX(mPeek * (value - from) / (to - from));
+				}
+			}
+
+			@Override
+			public void onEnd(boolean cancelled) {
+				mPanels.remove(top);
+				detachPanel(top);
+				top.recycleSnapshot();
+				top.view.setTranslationX(0);
+				below.view.setTranslationX(0);
+				finishAnimation();
+				requestLayout();
+				if (mListener != null) {
+					mListener.onPanelPopped(top.view);
+				}
+			}
+		});
+	}
+
+	private void animateBack(final float from) {
+		final View top = getTopPanel();
+		animate(from, 0, new SlideAnimation.Target() {
+
+			@Override
+			public void onPosition(float value) {
+				top.setTranslationX(value);
+			}
+
+			@Override
+			public void onEnd(boolean cancelled) {
+				finishAnimation();
+			}
+		});
+	}
+
+	/* duration scaled by the part of the travel left, as SidebarLayout does */
+	private void animate(float from, float to, SlideAnimation.Target target) {
+		final int travel = Math.max(1, getWidth() - mPeek);
+		final long duration = (long) (mDuration * Math.min(1, Math.abs(to - from) / travel));
+		mAnimating = true;
+		mRunning = new SlideAnimation(mFrameClock, from, to, duration, mInterpolator, target);
+		mRunning.start();
+	}
+
+	private void endAnimation() {
+		if (mRunning != null) {
+			mRunning.end();
+		}
+	}
+
+	private void finishAnimation() {
+		mAnimating = false;
+		mRunning = null;
+		updateAttachedPanels();
+	}
+
+	private void dispatchPushed(View view) {
+		if (mListener != null) {
+			mListener.onPanelPushed(view);
+		}
+	}
+
+	/* keep exactly the two topmost panels attached */
+	private void updateAttachedPanels() {
+		final int count = mPanels.size();
+		for (int i = 0; i < count; i++) {
+			final Panel panel = mPanels.get(i);
+			final boolean visible = i >= count - 2;
+			if (visible && !panel.attached) {
+				attachPanel(panel);
+			} else if (!visible && panel.attached) {
+				if (panel.view.getWidth() > 0) {
+					panel.createSnapshot();
+				}
+				detachPanel(panel);
+			}
+			if (visible) {
+				panel.recycleSnapshot();
+			}
+		}
+		trimSnapshots();
+		invalidate();
+	}
+
+	private void trimSnapshots() {
+		int kept = 0;
+		for (int i = mPanels.size() - 3; i >= 0; i--) {
+			final Panel panel = mPanels.get(i);
+			if (panel.snapshot != null && ++kept > mRetainedSnapshots) {
+				panel.recycleSnapshot();
+			}
+		}
+	}
+
+	/* child order follows stack order, so the top panel draws and takes touches */
+	private void attachPanel(Panel panel) {
+		if (panel.attached) {
+			return;
+		}
+		int index = 0;
+		for (Panel below : mPanels) {
+			if (below == panel) {
+				break;
+			}
+			if (below.attached) {
+				index++;
+			}
+		}
+		panel.attached = true;
+		LayoutParams lp = panel.view.getLayoutParams();
+		if (lp == null) {
+			lp = generateDefaultLayoutParams();
+		}
+		addViewInLayout(panel.view, index, lp, true);
+		panel.view.requestLayout();
+	}
+
+	private void detachPanel(Panel panel) {
+		if (!panel.attached) {
+			return;
+		}
+		panel.attached = false;
+		removeViewInLayout(panel.view);
+	}
+
+	@Override
+	protected LayoutParams generateDefaultLayoutParams() {
+		return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+	}
+
+	private int getPanelLeft(int index) {
+		return (index == mPanels.size() - 1 && index > 0) ? mPeek : 0;
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		final int width = MeasureSpec.getSize(widthMeasureSpec);
+		final int height = MeasureSpec.getSize(heightMeasureSpec);
+		setMeasuredDimension(width, height);
+
+		for (int i = 0; i < mPanels.size(); i++) {
+			final Panel panel = mPanels.get(i);
+			if (panel.attached) {
+				panel.view.measure(MeasureSpec.makeMeasureSpec(width - getPanelLeft(i),
+						MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(height,
+						MeasureSpec.EXACTLY));
+			}
+		}
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		for (int i = 0; i < mPanels.size(); i++) {
+			final Panel panel = mPanels.get(i);
+			if (panel.attached) {
+				final int left = getPanelLeft(i);
+				panel.view.layout(left, 0, left + panel.view.getMeasuredWidth(),
+						panel.view.getMeasuredHeight());
+			}
+		}
+	}
+
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		/* a covered panel revealed by a pop is drawn from its snapshot */
+		if (mAnimating) {
+			final int revealed = mPanels.size() - 3;
+			if (revealed >= 0) {
+				final Panel panel = mPanels.get(revealed);
+				if (!panel.attached && panel.snapshot != null) {
+					panel.snapshot.setBounds(0, 0, getWidth(), getHeight());
+					panel.snapshot.draw(canvas);
+				}
+			}
+		}
+		super.dispatchDraw(canvas);
+	}
+
+	@Override
+	public boolean onInterceptTouchEvent(MotionEvent ev) {
+		if (mPanels.size() < 2 || mAnimating) {
+			return false;
+		}
+
+		if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+			final int x = (int) ev.getX();
+			if (Math.abs(x - mPeek) <= mDragOffset) {
+				mSliding = true;
+				mDownX = x;
+				mDelta = 0;
+			}
+		}
+		return mSliding;
+	}
+
+	@Override
+	public boolean onTouchEvent(MotionEvent ev) {
+		if (!mSliding) {
+			return onInterceptTouchEvent(ev);
+		}
+
+		if (mVelocityTracker == null) {
+			mVelocityTracker = VelocityTracker.obtain();
+		}
+		mVelocityTracker.addMovement(ev);
+
+		final View top = getTopPanel();
+		switch (ev.getActionMasked()) {
+		case MotionEvent.ACTION_MOVE:
+			mDelta = Math.max(0, Math.min(getWidth() - mPeek, (int) ev.getX() - mDownX));
+			top.setTranslationX(mDelta);
+			invalidate();
+			return true;
+		case MotionEvent.ACTION_UP:
+		case MotionEvent.ACTION_CANCEL:
+			mSliding = false;
+			mVelocityTracker.computeCurrentVelocity(SidebarLayout.SNAP_VELOCITY,
+					mMaximumFlingVelocity);
+			final float velocity = mVelocityTracker.getXVelocity();
+			mVelocityTracker.recycle();
+			mVelocityTracker = null;
+
+			if (SidebarLayout.settlesForward(mDelta,
+					SidebarLayout.TOGLE_KOEF * (getWidth() - mPeek), velocity)) {
+				animatePop(mDelta);
+			} else if (mDelta != 0) {
+				animateBack(mDelta);
+			}
+			return true;
+		}
+		return true;
+	}
+
+	public interface PanelListener {
+		public void onPanelPushed(View panel);
+
+		public void onPanelPopped(View panel);
+	}
+}
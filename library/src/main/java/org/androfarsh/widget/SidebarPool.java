@@ -0,0 +1,200 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.view.View;
+
+/**
+ * Process-level pool of built sidebar view trees shared between activities.
+ * Pooled trees are inflated against a {@link MutableContextWrapper}; on
+ * release it is pointed at the application context so the tree doesn't
+ * hold the old activity, and on adoption at the new one. Only the parts a
+ * {@link Rebinder} touches are rebound. Idle trees are kept in a bounded LRU
+ * that shrinks on memory trim. Main thread only.
+ */
+public final class SidebarPool implements ComponentCallbacks2 {
+	private static final int MAX_SIZE = 2;
+
+	private static SidebarPool sInstance;
+
+	/* access ordered, the eldest entry is the least recently released */
+	private final LinkedHashMap<Object, Entry> mIdle = new LinkedHashMap<Object, Entry>(
+			MAX_SIZE + 1, 0.75f, true);
+	private final IdentityHashMap<View, Entry> mInUse = new IdentityHashMap<View, Entry>();
+	private int mMaxSize = MAX_SIZE;
+	private boolean mRegistered;
+
+	public static SidebarPool getInstance() {
+		if (sInstance == null) {
+			sInstance = new SidebarPool();
+		}
+		return sInstance;
+	}
+
+	private SidebarPool() {
+	}
+
+	public View acquire(Object key, Activity activity, SidebarLayout target,
+			SidebarFactory factory, Rebinder rebinder) {
+		registerCallbacks(activity);
+		Entry entry = mIdle.remove(key);
+		if (entry == null) {
+			final MutableContextWrapper context = new MutableContextWrapper(activity);
+			entry = new Entry(key, factory.createSidebar(context, target), context, rebinder);
+		} else {
+			entry.context.setBaseContext(activity);
+			entry.rebinder = rebinder;
+		}
+
+		mInUse.put(entry.view, entry);
+		target.setSidebar(entry.view);
+		if (entry.rebinder != null) {
+			entry.rebinder.onAdopt(entry.view, activity);
+		}
+		return entry.view;
+	}
+
+	/* detach the tree from its layout and keep it for the next acquire() */
+	public void release(SidebarLayout from) {
+		final View view = from.getSidebar();
+		final Entry entry = view != null ? mInUse.remove(view) : null;
+		if (entry == null) {
+			return;
+		}
+
+		from.setSidebar(null);
+		if (entry.rebinder != null) {
+			entry.rebinder.onRelease(entry.view);
+		}
+		entry.context.setBaseContext(entry.context.getApplicationContext());
+
+		final Entry previous = mIdle.put(entry.key, entry);
+		if (previous != null) {
+			discard(previous);
+		}
+		trimToSize(mMaxSize);
+	}
+
+	public boolean contains(Object key) {
+		return mIdle.containsKey(key);
+	}
+
+	public int getMaxSize() {
+		return mMaxSize;
+	}
+
+	/* idle trees kept, the least recently released go first */
+	public void setMaxSize(int maxSize) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("maxSize < 0");
+		}
+		mMaxSize = maxSize;
+		trimToSize(maxSize);
+	}
+
+	public void trimToSize(int maxSize) {
+		final Iterator<Entry> it = mIdle.values().iterator();
+		while (mIdle.size() > maxSize && it.hasNext()) {
+			final Entry entry = it.next();
+			it.remove();
+			discard(entry);
+		}
+	}
+
+	public void evict(Object key) {
+		final Entry entry = mIdle.remove(key);
+		if (entry != null) {
+			discard(entry);
+		}
+	}
+
+	public void clear() {
+		trimToSize(0);
+	}
+
+	/* every tree leaving the pool gets a last onRelease() from its rebinder */
+	private void discard(Entry entry) {
+		if (entry.rebinder != null) {
+			entry.rebinder.onRelease(entry.view);
+			entry.rebinder = null;
+		}
+		entry.context.setBaseContext(entry.context.getApplicationContext());
+	}
+
+	private void registerCallbacks(Context context) {
+		if (!mRegistered) {
+			mRegistered = true;
+			context.getApplicationContext().registerComponentCallbacks(this);
+		}
+	}
+
+	@Override
+	public void onTrimMemory(int level) {
+		if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+			trimToSize(0);
+		} else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+			trimToSize(mMaxSize / 2);
+		}
+	}
+
+	@Override
+	public void onLowMemory() {
+		trimToSize(0);
+	}
+
+	@Override
+	public void onConfigurationChanged(Configuration newConfig) {
+	}
+
+	static class Entry {
+		final Object key;
+		final View view;
+		final MutableContextWrapper context;
+		Rebinder rebinder;
+
+		Entry(Object key, View view, MutableContextWrapper context, Rebinder rebinder) {
+			this.key = key;
+			this.view = view;
+			this.context = context;
+			this.rebinder = rebinder;
+		}
+	}
+
+	public interface SidebarFactory {
+		/* inflate with the given context so the tree can be moved between activities */
+		public View createSidebar(Context context, SidebarLayout parent);
+	}
+
+	public interface Rebinder {
+		/* reattach activity bound parts: listeners, adapters holding the activity */
+		public void onAdopt(View sidebar, Activity activity);
+
+		/*
+		 * drop every reference to the activity the tree is leaving; called on
+		 * release() and once more when the idle tree is evicted from the pool
+		 */
+		public void onRelease(View sidebar);
+	}
+}
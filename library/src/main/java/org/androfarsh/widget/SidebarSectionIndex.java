@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.widget.ListAdapter;
+import android.widget.SectionIndexer;
+
+/**
+ * Precomputed section/position tables for a sectioned sidebar menu, so both
+ * directions of the lookup used by the fast-scroll rail are O(1).
+ */
+public class SidebarSectionIndex implements SectionIndexer {
+	private final Object[] mSections;
+	private final int[] mSectionStarts;
+	private final int[] mPositionSections;
+
+	/* sectionStarts must be ascending and start with 0 when count > 0 */
+	public SidebarSectionIndex(Object[] sections, int[] sectionStarts, int count) {
+		if (sections.length != sectionStarts.length) {
+			throw new IllegalArgumentException("sections and starts differ in size");
+		}
+		mSections = sections;
+		mSectionStarts = sectionStarts;
+		mPositionSections = new int[count];
+
+		int section = 0;
+		for (int position = 0; position < count; position++) {
+			while (section + 1 < sectionStarts.length
+					&& sectionStarts[section + 1] <= position) {
+				section++;
+			}
+			mPositionSections[position] = section;
+		}
+	}
+
+	/* one pass over the adapter, a new section starts where the key changes */
+	public static SidebarSectionIndex build(ListAdapter adapter, SectionResolver resolver) {
+		final List<Object> sections = new ArrayList<Object>();
+		final List<Integer> starts = new ArrayList<Integer>();
+		final int count = adapter.getCount();
+
+		Object last = null;
+		for (int i = 0; i < count; i++) {
+			final Object section = resolver.getSection(adapter, i);
+			if (i == 0 || (section == null ? last != null : !section.equals(last))) {
+				sections.add(section);
+				starts.add(i);
+			}
+			last = section;
+		}
+
+		final int[] sectionStarts = new int[starts.size()];
+		for (int i = 0; i < sectionStarts.length; i++) {
+			sectionStarts[i] = starts.get(i);
+		}
+		return new SidebarSectionIndex(sections.toArray(), sectionStarts, count);
+	}
+
+	public int getSectionCount() {
+		return mSections.length;
+	}
+
+	public int getCount() {
+		return mPositionSections.length;
+	}
+
+	public boolean isSectionStart(int position) {
+		return position >= 0 && position < mPositionSections.length
+				&& mSectionStarts[mPositionSections[position]] == position;
+	}
+
+	@Override
+	public Object[] getSections() {
+		return mSections;
+	}
+
+	@Override
+	public int getPositionForSection(int section) {
+		if (mSectionStarts.length == 0) {
+			return 0;
+		}
+		if (section < 0) {
+			section = 0;
+		} else if (section >= mSectionStarts.length) {
+			section = mSectionStarts.length - 1;
+		}
+		return mSectionStarts[section];
+	}
+
+	@Override
+	public int getSectionForPosition(int position) {
+		if (mPositionSections.length == 0) {
+			return 0;
+		}
+		if (position < 0) {
+			position = 0;
+		} else if (position >= mPositionSections.length) {
+			position = mPositionSections.length - 1;
+		}
+		return mPositionSections[position];
+	}
+
+	public interface SectionResolver {
+		public Object getSection(ListAdapter adapter, int position);
+	}
+}
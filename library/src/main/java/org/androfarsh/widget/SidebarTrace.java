@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.lang.reflect.Method;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Opt-in systrace/Perfetto sections for the {@link SidebarLayout} hot paths
+ * and async slices for gestures and animations. While disabled every call
+ * is a single static field check, so the sections stay compiled into
+ * release builds. Section begin/end must be balanced on the same thread:
+ *
+ * <pre>
+ * final boolean traced = SidebarTrace.begin(SidebarTrace.MEASURE);
+ * try {
+ *     ...
+ * } finally {
+ *     SidebarTrace.end(traced);
+ * }
+ * </pre>
+ */
+public final class SidebarTrace {
+	public static final String MEASURE = "SidebarLayout#onMeasure";
+	public static final String LAYOUT = "SidebarLayout#resolveLayout";
+	public static final String DRAG_MOVE = "SidebarLayout#dragMove";
+	public static final String TOGGLE = "SidebarLayout#toggleSidebar";
+	public static final String DRAWING_CACHE = "SidebarLayout#createDrawingCache";
+	public static final String DRAW_CACHED = "SidebarLayout#drawChildDrawable";
+	public static final String DISPATCH = "SidebarLayout#dispatchListeners";
+
+	/* async slices, they can span frames and overlap the sections above */
+	public static final String GESTURE = "SidebarLayout:gesture";
+	public static final String SETTLE = "SidebarLayout:settle";
+
+	private static boolean sEnabled;
+	private static boolean sAsyncResolved;
+	private static Method sBeginAsync;
+	private static Method sEndAsync;
+
+	private SidebarTrace() {
+	}
+
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		sEnabled = enabled;
+	}
+
+	/* returns whether a section was opened, pass it to end() */
+	public static boolean begin(String section) {
+		if (!sEnabled) {
+			return false;
+		}
+		Trace.beginSection(section);
+		return true;
+	}
+
+	public static void end(boolean traced) {
+		if (traced) {
+			Trace.endSection();
+		}
+	}
+
+	public static boolean beginAsync(String slice, int cookie) {
+		if (!sEnabled) {
+			return false;
+		}
+		return invokeAsync(true, slice, cookie);
+	}
+
+	public static void endAsync(boolean traced, String slice, int cookie) {
+		if (traced) {
+			invokeAsync(false, slice, cookie);
+		}
+	}
+
+	/*
+	 * Trace.beginAsyncSection()/endAsyncSection() are public from API 29 and
+	 * above the compile SDK, reached through reflection resolved once
+	 */
+	private static boolean invokeAsync(boolean begin, String slice, int cookie) {
+		if (!sAsyncResolved) {
+			sAsyncResolved = true;
+			if (Build.VERSION.SDK_INT >= 29) {
+				try {
+					sBeginAsync = Trace.class.getMethod("beginAsyncSection", String.class, int.class);
+					sEndAsync = Trace.class.getMethod("endAsyncSection", String.class, int.class);
+				} catch (NoSuchMethodException e) {
+					sBeginAsync = null;
+					sEndAsync = null;
+				}
+			}
+		}
+
+		final Method method = begin ? sBeginAsync : sEndAsync;
+		if (method == null) {
+			return false;
+		}
+		try {
+			method.invoke(null, slice, cookie);
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+}
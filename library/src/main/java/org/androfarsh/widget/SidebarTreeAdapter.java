@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+/**
+ * Tree menu mode. Only the expanded part of the tree is kept in the flat
+ * list the ListView binds; children are requested from a
+ * {@link TreeProvider} when a node is expanded and spliced in as one range,
+ * and collapsing removes just that node's visible descendants.
+ */
+public abstract class SidebarTreeAdapter extends BaseAdapter {
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final TreeProvider mProvider;
+	private final ArrayList<TreeNode> mVisible = new ArrayList<TreeNode>();
+	private boolean mRetainCollapsed;
+
+	public SidebarTreeAdapter(TreeProvider provider, List<TreeNode> roots) {
+		if (provider == null) {
+			throw new NullPointerException("no provider");
+		}
+		mProvider = provider;
+		for (TreeNode root : roots) {
+			root.mDepth = 0;
+			mVisible.add(root);
+		}
+	}
+
+	/* keep loaded children of collapsed nodes instead of dropping them */
+	public void setRetainCollapsed(boolean retain) {
+		mRetainCollapsed = retain;
+	}
+
+	public boolean isRetainCollapsed() {
+		return mRetainCollapsed;
+	}
+
+	public void toggle(int position) {
+		final TreeNode node = getItem(position);
+		if (node.mExpanded) {
+			collapse(position);
+		} else {
+			expand(position);
+		}
+	}
+
+	public void expand(int position) {
+		final TreeNode node = getItem(position);
+		if (!node.mExpandable || node.mExpanded) {
+			return;
+		}
+
+		node.mExpanded = true;
+		if (node.mChildren != null) {
+			insertChildren(position, node);
+			return;
+		}
+
+		final int token = ++node.mLoadToken;
+		node.mLoading = true;
+		notifyDataSetChanged();
+		mProvider.loadChildren(node, new LoadCallback() {
+
+			@Override
+			public void onChildrenLoaded(final List<TreeNode> children) {
+				if (Looper.myLooper() == Looper.getMainLooper()) {
+					deliver(node, token, children);
+				} else {
+					mHandler.post(new Runnable() {
+
+						@Override
+						public void run() {
+							deliver(node, token, children);
+						}
+					});
+				}
+			}
+		});
+	}
+
+	public void collapse(int position) {
+		final TreeNode node = getItem(position);
+		if (!node.mExpanded) {
+			return;
+		}
+
+		node.mExpanded = false;
+		node.mLoading = false;
+		node.mLoadToken++;
+
+		int end = position + 1;
+		while (end < mVisible.size() && mVisible.get(end).mDepth > node.mDepth) {
+			end++;
+		}
+		mVisible.subList(position + 1, end).clear();
+
+		if (!mRetainCollapsed) {
+			node.mChildren = null;
+		}
+		notifyDataSetChanged();
+	}
+
+	private void deliver(TreeNode node, int token, List<TreeNode> children) {
+		if (node.mLoadToken != token || !node.mExpanded) {
+			return;
+		}
+
+		node.mLoading = false;
+		node.mChildren = new ArrayList<TreeNode>(children);
+		for (TreeNode child : node.mChildren) {
+			child.mParent = node;
+			child.mDepth = node.mDepth + 1;
+		}
+
+		final int position = mVisible.indexOf(node);
+		if (position >= 0) {
+			insertChildren(position, node);
+		}
+	}
+
+	private void insertChildren(int position, TreeNode node) {
+		final List<TreeNode> range = new ArrayList<TreeNode>();
+		collectVisible(node, range);
+		mVisible.addAll(position + 1, range);
+		notifyDataSetChanged();
+	}
+
+	private static void collectVisible(TreeNode node, List<TreeNode> out) {
+		if (!node.mExpanded || node.mChildren == null) {
+			return;
+		}
+		for (TreeNode child : node.mChildren) {
+			out.add(child);
+			collectVisible(child, out);
+		}
+	}
+
+	@Override
+	public int getCount() {
+		return mVisible.size();
+	}
+
+	@Override
+	public TreeNode getItem(int position) {
+		return mVisible.get(position);
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return mVisible.get(position).mId;
+	}
+
+	/* node ids only stay with their nodes if the provider hands them out so */
+	@Override
+	public boolean hasStableIds() {
+		return mProvider.hasStableIds();
+	}
+
+	@Override
+	public View getView(int position, View convertView, ViewGroup parent) {
+		return getNodeView(getItem(position), convertView, parent);
+	}
+
+	protected abstract View getNodeView(TreeNode node, View convertView, ViewGroup parent);
+
+	public static class TreeNode {
+		private final long mId;
+		private final Object mData;
+		private final boolean mExpandable;
+
+		private TreeNode mParent;
+		private List<TreeNode> mChildren;
+		private int mDepth;
+		private boolean mExpanded;
+		private boolean mLoading;
+		private int mLoadToken;
+
+		public TreeNode(long id, Object data, boolean expandable) {
+			mId = id;
+			mData = data;
+			mExpandable = expandable;
+		}
+
+		public long getId() {
+			return mId;
+		}
+
+		public Object getData() {
+			return mData;
+		}
+
+		public TreeNode getParent() {
+			return mParent;
+		}
+
+		public int getDepth() {
+			return mDepth;
+		}
+
+		public boolean isExpandable() {
+			return mExpandable;
+		}
+
+		public boolean isExpanded() {
+			return mExpanded;
+		}
+
+		public boolean isLoading() {
+			return mLoading;
+		}
+	}
+
+	public interface TreeProvider {
+		/* may answer asynchronously and from any thread */
+		public void loadChildren(TreeNode node, LoadCallback callback);
+
+		/* true if a node id always means the same node, across reloads too */
+		public boolean hasStableIds();
+	}
+
+	public interface LoadCallback {
+		public void onChildrenLoaded(List<TreeNode> children);
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import android.view.animation.Interpolator;
+
+/**
+ * Settle animation of the sidebar panes driven by a {@link FrameClock}.
+ * Every position is sampled from the frame time the clock hands out, vsync
+ * for the default one, not from the time at callback, so frames stay evenly
+ * paced at any refresh rate. Main thread only.
+ */
+class SlideAnimation implements FrameClock.Callback {
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final float NANOS_PER_SECOND = 1e9f;
+
+	private final float mFrom;
+	private final float mTo;
+	private final long mDurationNanos;
+	private final Interpolator mInterpolator;
+	private final Target mTarget;
+	private final FrameClock mClock;
+
+	private long mStartNanos;
+	private long mFirstFrameNanos;
+	private long mLastFrameNanos;
+	private int mFrames;
+	private boolean mRunning;
+
+	SlideAnimation(FrameClock clock, float from, float to, long durationMillis,
+			Interpolator interpolator, Target target) {
+		mClock = clock;
+		mFrom = from;
+		mTo = to;
+		mDurationNanos = Math.max(0, durationMillis) * NANOS_PER_MILLI;
+		mInterpolator = interpolator;
+		mTarget = target;
+	}
+
+	void start() {
+		mRunning = true;
+		mStartNanos = mClock.nanoTime();
+		mTarget.onPosition(mFrom);
+		mClock.postFrameCallback(this);
+	}
+
+	boolean isRunning() {
+		return mRunning;
+	}
+
+	/* jump to the end position and finish */
+	void end() {
+		if (!mRunning) {
+			return;
+		}
+		mClock.removeFrameCallback(this);
+		finish();
+	}
+
+	/* stop where it is */
+	void cancel() {
+		if (!mRunning) {
+			return;
+		}
+		mClock.removeFrameCallback(this);
+		mRunning = false;
+		mTarget.onEnd(true);
+	}
+
+	/* frames per second over the frames drawn so far */
+	float getFrameRate() {
+		if (mFrames < 2 || mLastFrameNanos == mFirstFrameNanos) {
+			return 0;
+		}
+		return (mFrames - 1) * NANOS_PER_SECOND / (mLastFrameNanos - mFirstFrameNanos);
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		if (!mRunning) {
+			return;
+		}
+
+		if (mFrames++ == 0) {
+			mFirstFrameNanos = frameTimeNanos;
+		}
+		mLastFrameNanos = frameTimeNanos;
+
+		final float t = mDurationNanos > 0 ? Math.max(0, Math.min(1,
+				(frameTimeNanos - mStartNanos) / (float) mDurationNanos)) : 1;
+		if (t >= 1) {
+			finish();
+			return;
+		}
+
+		mTarget.onPosition(mFrom + (mTo - mFrom) * mInterpolator.getInterpolation(t));
+		mClock.postFrameCallback(this);
+	}
+
+	private void finish() {
+		mRunning = false;
+		mTarget.onPosition(mTo);
+		mTarget.onEnd(false);
+	}
+
+	interface Target {
+		public void onPosition(float value);
+
+		public void onEnd(boolean cancelled);
+	}
+}
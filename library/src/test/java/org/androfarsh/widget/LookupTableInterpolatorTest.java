@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import android.view.animation.Interpolator;
+
+/* the framework curves are stubs on the JVM, these follow their formulas */
+public class LookupTableInterpolatorTest {
+	private static final int SAMPLES = 4096;
+	private static final float SMOOTH_BOUND = 1e-3f;
+	private static final float BOUNCE_BOUND = 2e-2f;
+
+	private static final Interpolator ACCELERATE = new Interpolator() {
+
+		@Override
+		public float getInterpolation(float input) {
+			return input * input;
+		}
+	};
+
+	private static final Interpolator DECELERATE = new Interpolator() {
+
+		@Override
+		public float getInterpolation(float input) {
+			return 1.0f - (1.0f - input) * (1.0f - input);
+		}
+	};
+
+	private static final Interpolator ANTICIPATE_OVERSHOOT = new Interpolator() {
+		private static final float TENSION = 2.0f * 1.5f;
+
+		@Override
+		public float getInterpolation(float t) {
+			if (t < 0.5f) {
+				t *= 2.0f;
+				return 0.5f * (t * t * ((TENSION + 1) * t - TENSION));
+			}
+			t = t * 2.0f - 2.0f;
+			return 0.5f * (t * t * ((TENSION + 1) * t + TENSION) + 2.0f);
+		}
+	};
+
+	private static final Interpolator BOUNCE = new Interpolator() {
+
+		private float bounce(float t) {
+			return t * t * 8.0f;
+		}
+
+		@Override
+		public float getInterpolation(float t) {
+			t *= 1.1226f;
+			if (t < 0.3535f) {
+				return bounce(t);
+			} else if (t < 0.7408f) {
+				return bounce(t - 0.54719f) + 0.7f;
+			} else if (t < 0.9644f) {
+				return bounce(t - 0.8526f) + 0.9f;
+			} else {
+				return bounce(t - 1.0435f) + 0.95f;
+			}
+		}
+	};
+
+	@Test
+	public void smoothCurvesStayWithinBound() {
+		assertTrue(new LookupTableInterpolator(ACCELERATE).getMaxError(SAMPLES) < SMOOTH_BOUND);
+		assertTrue(new LookupTableInterpolator(DECELERATE).getMaxError(SAMPLES) < SMOOTH_BOUND);
+		assertTrue(new LookupTableInterpolator(ANTICIPATE_OVERSHOOT)
+				.getMaxError(SAMPLES) < SMOOTH_BOUND);
+	}
+
+	@Test
+	public void bounceStaysWithinLooserBound() {
+		/* the bounce kinks fall between table entries */
+		assertTrue(new LookupTableInterpolator(BOUNCE).getMaxError(SAMPLES) < BOUNCE_BOUND);
+	}
+
+	@Test
+	public void smallerTableHasLargerError() {
+		final float small = new LookupTableInterpolator(ANTICIPATE_OVERSHOOT, 17)
+				.getMaxError(SAMPLES);
+		final float large = new LookupTableInterpolator(ANTICIPATE_OVERSHOOT)
+				.getMaxError(SAMPLES);
+		assertTrue(small > large);
+	}
+
+	@Test
+	public void endpointsAreExactAndInputIsClamped() {
+		final LookupTableInterpolator table = new LookupTableInterpolator(ANTICIPATE_OVERSHOOT);
+		assertEquals(ANTICIPATE_OVERSHOOT.getInterpolation(0), table.getInterpolation(0), 0);
+		assertEquals(ANTICIPATE_OVERSHOOT.getInterpolation(1), table.getInterpolation(1), 0);
+		assertEquals(table.getInterpolation(0), table.getInterpolation(-1), 0);
+		assertEquals(table.getInterpolation(1), table.getInterpolation(2), 0);
+	}
+
+	@Test
+	public void tableEntriesMatchSource() {
+		final LookupTableInterpolator table = new LookupTableInterpolator(BOUNCE, 5);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(BOUNCE.getInterpolation(i / 4f), table.getInterpolation(i / 4f), 1e-6f);
+		}
+	}
+
+	@Test
+	public void wrapKeepsNullAndTables() {
+		assertNull(LookupTableInterpolator.wrap(null));
+		final LookupTableInterpolator table = new LookupTableInterpolator(ACCELERATE);
+		assertSame(table, LookupTableInterpolator.wrap(table));
+		assertSame(ACCELERATE, ((LookupTableInterpolator) LookupTableInterpolator
+				.wrap(ACCELERATE)).getSource());
+	}
+}
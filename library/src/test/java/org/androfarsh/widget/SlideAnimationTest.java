@@ -0,0 +1,200 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authored by Anton Kuhlevskyi <anton.kuhleskiy@gmail.com>
+ */
+package org.androfarsh.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import android.view.animation.Interpolator;
+
+public class SlideAnimationTest {
+	private static final float DELTA = 1e-3f;
+	private static final long DURATION = 100;
+
+	private static final Interpolator LINEAR = new Interpolator() {
+
+		@Override
+		public float getInterpolation(float input) {
+			return input;
+		}
+	};
+
+	private static final Interpolator QUADRATIC = new Interpolator() {
+
+		@Override
+		public float getInterpolation(float input) {
+			return input * input;
+		}
+	};
+
+	private ManualFrameClock mClock;
+	private RecordingTarget mTarget;
+
+	@Before
+	public void setUp() {
+		mClock = new ManualFrameClock(ManualFrameClock.FRAME_60HZ);
+		mTarget = new RecordingTarget();
+	}
+
+	@Test
+	public void positionsFollowFrameTime() {
+		final SlideAnimation animation = start(0, 100, DURATION, LINEAR);
+		assertPositions(0f);
+
+		mClock.step();
+		assertPositions(0f, 16.666667f);
+		mClock.step();
+		assertPositions(0f, 16.666667f, 33.333334f);
+		mClock.step(3);
+		assertPositions(0f, 16.666667f, 33.333334f, 50f, 66.66667f, 83.33334f);
+		assertTrue(animation.isRunning());
+		assertEquals(0, mTarget.ends.size());
+
+		/* 100.00002ms into a 100ms animation */
+		mClock.step();
+		assertPositions(0f, 16.666667f, 33.333334f, 50f, 66.66667f, 83.33334f, 100f);
+		assertFalse(animation.isRunning());
+		assertFalse(mClock.hasPendingFrames());
+		assertEquals(1, mTarget.ends.size());
+		assertFalse(mTarget.ends.get(0));
+	}
+
+	@Test
+	public void positionsAreInterpolated() {
+		start(0, 100, DURATION, QUADRATIC);
+
+		mClock.step(3);
+		assertEquals(25f, mTarget.last(), DELTA);
+	}
+
+	@Test
+	public void runsBackwards() {
+		start(100, 0, DURATION, LINEAR);
+
+		mClock.step(3);
+		assertEquals(50f, mTarget.last(), DELTA);
+		mClock.runUntilIdle(100);
+		assertEquals(0f, mTarget.last(), DELTA);
+	}
+
+	@Test
+	public void stalledFrameCatchesUp() {
+		start(0, 100, DURATION, LINEAR);
+
+		mClock.advance(3 * ManualFrameClock.FRAME_60HZ);
+		mClock.step();
+		assertPositions(0f, 66.66667f);
+	}
+
+	@Test
+	public void stepsEveryFrameAtHigherRefreshRate() {
+		mClock.setFrameInterval(ManualFrameClock.FRAME_120HZ);
+		start(0, 100, 90, LINEAR);
+
+		/* the 11th frame lands at 91.7ms */
+		assertEquals(11, mClock.runUntilIdle(100));
+		assertEquals(12, mTarget.positions.size());
+		assertEquals(9.259259f, mTarget.positions.get(1), DELTA);
+		assertEquals(92.59259f, mTarget.positions.get(10), DELTA);
+		assertEquals(100f, mTarget.last(), DELTA);
+	}
+
+	@Test
+	public void cancelStopsInPlace() {
+		final SlideAnimation animation = start(0, 100, DURATION, LINEAR);
+
+		mClock.step(2);
+		animation.cancel();
+		assertFalse(animation.isRunning());
+		assertFalse(mClock.hasPendingFrames());
+		assertEquals(33.333334f, mTarget.last(), DELTA);
+		assertEquals(1, mTarget.ends.size());
+		assertTrue(mTarget.ends.get(0));
+
+		mClock.step();
+		assertEquals(3, mTarget.positions.size());
+	}
+
+	@Test
+	public void endJumpsToTarget() {
+		final SlideAnimation animation = start(0, 100, DURATION, LINEAR);
+
+		mClock.step();
+		animation.end();
+		assertFalse(animation.isRunning());
+		assertFalse(mClock.hasPendingFrames());
+		assertPositions(0f, 16.666667f, 100f);
+		assertEquals(1, mTarget.ends.size());
+		assertFalse(mTarget.ends.get(0));
+	}
+
+	@Test
+	public void zeroDurationEndsOnFirstFrame() {
+		start(0, 100, 0, LINEAR);
+
+		assertEquals(1, mClock.runUntilIdle(100));
+		assertPositions(0f, 100f);
+		assertEquals(1, mTarget.ends.size());
+	}
+
+	@Test
+	public void measuresFrameRate() {
+		final SlideAnimation animation = start(0, 100, DURATION, LINEAR);
+
+		mClock.step(4);
+		assertEquals(60f, animation.getFrameRate(), 0.01f);
+	}
+
+	private SlideAnimation start(float from, float to, long duration, Interpolator interpolator) {
+		final SlideAnimation animation = new SlideAnimation(mClock, from, to, duration,
+				interpolator, mTarget);
+		animation.start();
+		return animation;
+	}
+
+	private void assertPositions(float... expected) {
+		assertEquals(expected.length, mTarget.positions.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("frame " + i, expected[i], mTarget.positions.get(i), DELTA);
+		}
+	}
+
+	static class RecordingTarget implements SlideAnimation.Target {
+		final List<Float> positions = new ArrayList<Float>();
+		final List<Boolean> ends = new ArrayList<Boolean>();
+
+		float last() {
+			return positions.get(positions.size() - 1);
+		}
+
+		@Override
+		public void onPosition(float value) {
+			positions.add(value);
+		}
+
+		@Override
+		public void onEnd(boolean cancelled) {
+			ends.add(cancelled);
+		}
+	}
+}